@@ -0,0 +1,55 @@
+package com.reactivespring.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Resume point of the movie info stream, {@code <epoch>:<eventId>}. Event ids restart with every process, so they
+ * only compare within the epoch that numbered them. A bare event id, as sent by older clients, has no epoch.
+ */
+final class EventPosition {
+
+    private static final char SEPARATOR = ':';
+
+    @Nullable
+    private final Long epoch;
+
+    private final long eventId;
+
+    private EventPosition(@Nullable Long epoch, long eventId) {
+        this.epoch = epoch;
+        this.eventId = eventId;
+    }
+
+    static String format(long epoch, long eventId) {
+        return epoch + String.valueOf(SEPARATOR) + eventId;
+    }
+
+    static EventPosition parse(String position) {
+        try {
+            int separator = position.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new EventPosition(null, Long.parseLong(position.trim()));
+            }
+            return new EventPosition(Long.parseLong(position.substring(0, separator)
+                                                            .trim()),
+                                     Long.parseLong(position.substring(separator + 1)
+                                                            .trim()));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid event id : " + position);
+        }
+    }
+
+    /**
+     * Whether the event id was numbered by {@code currentEpoch}; a bare id is taken to be, as long as it is not past
+     * {@code latestEventId}.
+     */
+    boolean isFrom(long currentEpoch, long latestEventId) {
+        return epoch != null ? epoch == currentEpoch : eventId <= latestEventId;
+    }
+
+    long getEventId() {
+        return eventId;
+    }
+}
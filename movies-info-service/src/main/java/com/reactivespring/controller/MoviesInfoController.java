@@ -1,47 +1,110 @@
 package com.reactivespring.controller;
 
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoBatchResult;
+import com.reactivespring.domain.MovieInfoEvent;
 import com.reactivespring.service.MovieInfoService;
+import com.reactivespring.tracing.SignalTracer;
+import io.rsocket.exceptions.InvalidException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 
 import javax.validation.Valid;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/v1")
 @Slf4j
 public class MoviesInfoController {
 
-    Sinks.Many<MovieInfo> moviesInfoSink = Sinks.many()
-                                                .replay()
-                                                .latest();
+    // bounded replay ring, lets reconnecting clients resume from the last event id they have seen
+    Sinks.Many<MovieInfoEvent> moviesInfoSink;
+
+    private long lastEventId;
+
+    private final long epoch = Instant.now()
+                                      .toEpochMilli();
 
     private MovieInfoService movieInfoService;
 
+    private SignalTracer signalTracer;
+
+    private int defaultPageSize;
+
+    private int maxPageSize;
+
+    private int batchChunkSize;
+
 
-    public MoviesInfoController(MovieInfoService movieInfoService) {
+    public MoviesInfoController(MovieInfoService movieInfoService, SignalTracer signalTracer,
+                                @Value("${movieInfoStream.replaySize:1000}") int replaySize,
+                                @Value("${pagination.defaultLimit:100}") int defaultPageSize,
+                                @Value("${pagination.maxLimit:1000}") int maxPageSize,
+                                @Value("${movieInfoBatch.chunkSize:500}") int batchChunkSize) {
+        // a chunk is published in one go, so it has to fit the replay ring for a client reconnecting mid-load to
+        // resume without a gap
+        if (batchChunkSize > replaySize) {
+            throw new IllegalArgumentException("movieInfoBatch.chunkSize (" + batchChunkSize
+                                                       + ") must not exceed movieInfoStream.replaySize (" + replaySize + ")");
+        }
         this.movieInfoService = movieInfoService;
+        this.signalTracer = signalTracer;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.batchChunkSize = batchChunkSize;
+        this.moviesInfoSink = Sinks.many()
+                                   .replay()
+                                   .limit(replaySize);
     }
 
     @GetMapping("/movieinfos")
-    public Flux<MovieInfo> getAllMovieInfos(@RequestParam(value = "year", required = false) Integer year, @RequestParam(value = "name", required = false) String movieName) {
+    public Flux<MovieInfo> getAllMovieInfos(@RequestParam(value = "year", required = false) Integer year, @RequestParam(value = "name", required = false) String movieName,
+                                            @RequestParam(value = "fields", required = false) String fields,
+                                            @RequestParam(value = "limit", required = false) Integer limit,
+                                            @RequestParam(value = "after", required = false) String after,
+                                            ServerHttpResponse response) {
         log.info("Year  : {} & MovieName : {} ", year, movieName);
 
+        if (limit != null || after != null) {
+            return getMovieInfoPage(year, movieName, fields, limit, after, response);
+        }
+        if (fields != null) {
+            return movieInfoService.getMovieInfos(year, movieName, projection(fields))
+                                   .transform(signalTracer.flux("getAllMovieInfos"));
+        }
+        if (year != null && movieName != null) {
+            return movieInfoService.getMovieInfoByYearAndName(year, movieName);
+        }
         if (year != null) {
             return movieInfoService.getMovieInfoByYear(year);
         }
@@ -49,22 +112,149 @@ public class MoviesInfoController {
             return movieInfoService.getMovieInfoByName(movieName);
         }
         return movieInfoService.getAllMovieInfos()
-                               .log();
+                               .transform(signalTracer.flux("getAllMovieInfos"));
+    }
+
+    // reads one movie info past the page to know whether a next page exists, so the last page carries no token
+    private Flux<MovieInfo> getMovieInfoPage(Integer year, String movieName, String fields, Integer limit,
+                                             String after, ServerHttpResponse response) {
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                              "limit must be between 1 and " + maxPageSize + " : " + pageSize);
+        }
+        String afterId = after != null ? PageToken.decode(after) : null;
+        Set<String> projection = fields != null ? projection(fields) : Set.of();
+        return movieInfoService.getMovieInfoPage(year, movieName, projection, afterId, pageSize + 1)
+                               .collectList()
+                               .flatMapIterable(movieInfos -> {
+                                   if (movieInfos.size() <= pageSize) {
+                                       return movieInfos;
+                                   }
+                                   List<MovieInfo> page = movieInfos.subList(0, pageSize);
+                                   response.getHeaders()
+                                           .set(PageToken.NEXT_PAGE_HEADER,
+                                                PageToken.encode(page.get(pageSize - 1)
+                                                                     .getMovieInfoId()));
+                                   return page;
+                               })
+                               .transform(signalTracer.flux("getMovieInfoPage"));
     }
 
     @GetMapping("/movieinfos/{id}")
-    public Mono<ResponseEntity<MovieInfo>> getMovieInfoById(@PathVariable String id) {
-        return movieInfoService.getMovieInfoById(id)
-                               .map(ResponseEntity.ok()::body)
-                               .switchIfEmpty(Mono.just(ResponseEntity.notFound()
-                                                                      .build()))
-                               .log();
+    public Mono<ResponseEntity<MovieInfo>> getMovieInfoById(@PathVariable String id,
+                                                            @RequestParam(value = "fields", required = false) String fields) {
+        Mono<MovieInfo> movieInfoMono = fields != null
+                ? movieInfoService.getMovieInfoById(id, projection(fields))
+                : movieInfoService.getMovieInfoById(id);
+        return movieInfoMono.map(ResponseEntity.ok()::body)
+                            .switchIfEmpty(Mono.just(ResponseEntity.notFound()
+                                                                   .build()))
+                            .transform(signalTracer.mono("getMovieInfoById"));
+    }
+
+    @PostMapping("/movieinfos/bulk")
+    public Flux<MovieInfo> getMovieInfosByIds(@RequestBody List<String> movieInfoIds,
+                                              @RequestParam(value = "fields", required = false) String fields) {
+        Flux<MovieInfo> movieInfoFlux = fields != null
+                ? movieInfoService.getMovieInfosByIds(movieInfoIds, projection(fields))
+                : movieInfoService.getMovieInfosByIds(movieInfoIds);
+        return movieInfoFlux.transform(signalTracer.flux("getMovieInfosByIds"));
+    }
+
+    // an unknown field would silently project to nothing, so it is rejected instead
+    private static Set<String> projection(String fields) {
+        Set<String> projection = Arrays.stream(fields.split(","))
+                                       .map(String::trim)
+                                       .filter(field -> !field.isEmpty())
+                                       .collect(Collectors.toCollection(LinkedHashSet::new));
+        List<String> unknownFields = projection.stream()
+                                               .filter(field -> !MovieInfo.FIELDS.contains(field))
+                                               .collect(Collectors.toList());
+        if (!unknownFields.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown movieInfo fields : " + unknownFields);
+        }
+        return projection;
     }
 
     @GetMapping(value = "/movieinfos/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
-    public Flux<MovieInfo> getMovieInfoById() {
-        return moviesInfoSink.asFlux()
-                             .log();
+    public Flux<MovieInfoEvent> getMovieInfoById(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                                 @RequestParam(value = "since", required = false) String since) {
+        return movieInfoEvents(since != null ? since : lastEventIdHeader).transform(signalTracer.flux("movieInfoStream"));
+    }
+
+    @GetMapping(value = "/movieinfos/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<MovieInfo>> getMovieInfoEventStream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                                                    @RequestParam(value = "since", required = false) String since) {
+        return movieInfoEvents(since != null ? since : lastEventIdHeader).map(event -> ServerSentEvent.builder(event.getMovieInfo())
+                                                                                                      .id(EventPosition.format(event.getEpoch(),
+                                                                                                                               event.getEventId()))
+                                                                                                      .event(event.getType()
+                                                                                                                  .name())
+                                                                                                      .build());
+    }
+
+    // RSocket routes, same contracts as the HTTP endpoints above; a missing movie info completes empty
+
+    @MessageMapping("movieinfos.{id}")
+    public Mono<MovieInfo> getMovieInfoByIdRoute(@DestinationVariable String id,
+                                                 @Payload(required = false) String fields) {
+        Mono<MovieInfo> movieInfoMono = fields != null
+                ? movieInfoService.getMovieInfoById(id, projection(fields))
+                : movieInfoService.getMovieInfoById(id);
+        return movieInfoMono.transform(signalTracer.mono("getMovieInfoById"));
+    }
+
+    @MessageMapping("movieinfos.bulk")
+    public Flux<MovieInfo> getMovieInfosByIdsRoute(List<String> movieInfoIds) {
+        return movieInfoService.getMovieInfosByIds(movieInfoIds)
+                               .transform(signalTracer.flux("getMovieInfosByIds"));
+    }
+
+    @MessageMapping("movieinfos.stream")
+    public Flux<MovieInfoEvent> getMovieInfoStreamRoute(@Payload(required = false) String lastEventId) {
+        return movieInfoEvents(lastEventId);
+    }
+
+    // a bad request goes out as an INVALID error, so the requester can tell it apart from a failure worth retrying
+    @MessageExceptionHandler(ResponseStatusException.class)
+    public Mono<Void> handleRouteException(ResponseStatusException exception) {
+        if (exception.getStatus()
+                     .is4xxClientError()) {
+            return Mono.error(new InvalidException(exception.getReason()));
+        }
+        return Mono.error(exception);
+    }
+
+    private Flux<MovieInfoEvent> movieInfoEvents(String resumeAfter) {
+        return Flux.defer(() -> {
+            long after = resumeAfter != null ? resumeAfter(EventPosition.parse(resumeAfter)) : latestEventId() - 1;
+            return moviesInfoSink.asFlux()
+                                 .filter(event -> event.getEventId() > after);
+        });
+    }
+
+    // without a resume point a new subscriber only gets the latest event, as before; a resume point numbered by an
+    // earlier process says nothing about this one's ids, so the whole replay ring is sent instead
+    private long resumeAfter(EventPosition position) {
+        if (position.isFrom(epoch, latestEventId())) {
+            return position.getEventId();
+        }
+        log.info("Last-Event-ID {} is from another epoch than {}, replaying from the start", position.getEventId(),
+                 epoch);
+        return 0;
+    }
+
+    private synchronized long latestEventId() {
+        return lastEventId;
+    }
+
+    private synchronized void publish(MovieInfoEvent.Type type, MovieInfo movieInfo) {
+        moviesInfoSink.tryEmitNext(new MovieInfoEvent(++lastEventId, epoch, type, Instant.now(), movieInfo));
+    }
+
+    private synchronized void publishAll(MovieInfoEvent.Type type, List<MovieInfo> movieInfos) {
+        movieInfos.forEach(movieInfo -> publish(type, movieInfo));
     }
 
     @PostMapping("/movieinfos")
@@ -72,25 +262,47 @@ public class MoviesInfoController {
     public Mono<MovieInfo> addMovieInfo(@RequestBody @Valid MovieInfo movieInfo) {
 
         return movieInfoService.addMovieInfo(movieInfo)
-                               .doOnNext(savedInfo -> moviesInfoSink.tryEmitNext(savedInfo));
+                               .doOnNext(savedInfo -> publish(MovieInfoEvent.Type.ADDED, savedInfo));
+
+    }
+
+    // a JSON array or NDJSON body, decoded and written chunk by chunk; once a chunk is in Mongo every movie info in it
+    // is published as its own ADDED event, all under one lock so the chunk gets consecutive event ids. Live subscribers
+    // get every event however large the load, the ring only bounds what a client reconnecting mid-load can replay
+    @PostMapping(value = "/movieinfos/batch", consumes = {MediaType.APPLICATION_JSON_VALUE,
+                                                          MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<MovieInfoBatchResult> addMovieInfos(@RequestBody Flux<MovieInfo> movieInfos) {
 
+        return movieInfoService.addMovieInfos(movieInfos, batchChunkSize)
+                               .doOnNext(chunk -> publishAll(MovieInfoEvent.Type.ADDED, chunk.getInserted()))
+                               .reduceWith(() -> new MovieInfoBatchResult(0, new ArrayList<>()), (result, chunk) -> {
+                                   result.setInserted(result.getInserted() + chunk.getInserted()
+                                                                                  .size());
+                                   result.getFailures()
+                                         .addAll(chunk.getFailures());
+                                   return result;
+                               })
+                               .transform(signalTracer.mono("addMovieInfos"));
     }
 
 
     @PutMapping("/movieinfos/{id}")
     public Mono<ResponseEntity<MovieInfo>> updateMovieInfo(@RequestBody @Valid MovieInfo updatedMovieInfo, @PathVariable String id) {
         return movieInfoService.updateMovieInfo(updatedMovieInfo, id)
+                               .doOnNext(savedInfo -> publish(MovieInfoEvent.Type.UPDATED, savedInfo))
                                .map(ResponseEntity.ok()::body)
                                .switchIfEmpty(Mono.just(ResponseEntity.notFound()
                                                                       .build()))
-                               .log();
+                               .transform(signalTracer.mono("updateMovieInfo"));
     }
 
     @DeleteMapping("/movieinfos/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public Mono<Void> deleteMovieInfo(@PathVariable String id) {
         return movieInfoService.deleteMovieInfo(id)
-                               .log();
+                               .doOnSuccess(ignored -> publish(MovieInfoEvent.Type.DELETED,
+                                                               new MovieInfo(id, null, null, null, null)))
+                               .transform(signalTracer.mono("deleteMovieInfo"));
     }
 
 
@@ -0,0 +1,38 @@
+package com.reactivespring.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque {@code after=} token of a keyset page: the id of the last movie info on the previous page. Clients only ever
+ * pass back what the {@link #NEXT_PAGE_HEADER} gave them.
+ */
+final class PageToken {
+
+    static final String NEXT_PAGE_HEADER = "X-Next-Page-Token";
+
+    private PageToken() {
+    }
+
+    static String encode(String lastId) {
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decode(String token) {
+        try {
+            String lastId = new String(Base64.getUrlDecoder()
+                                             .decode(token), StandardCharsets.UTF_8);
+            if (lastId.isEmpty()) {
+                throw new IllegalArgumentException("empty token");
+            }
+            return lastId;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page token : " + token);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.tracing.SignalTracer;
+import com.reactivespring.tracing.TraceEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/v1/traces")
+public class TraceController {
+
+    private SignalTracer signalTracer;
+
+    public TraceController(SignalTracer signalTracer) {
+        this.signalTracer = signalTracer;
+    }
+
+    @GetMapping
+    public List<TraceEvent> getTraces(@RequestParam(value = "traceId", required = false) String traceId) {
+        return signalTracer.dump(traceId);
+    }
+}
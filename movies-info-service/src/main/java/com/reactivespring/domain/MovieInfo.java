@@ -1,9 +1,13 @@
 package com.reactivespring.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.NotBlank;
@@ -11,13 +15,24 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document
+@JsonInclude(JsonInclude.Include.NON_NULL)
+// every filter ends in _id, so keyset pages walk the index in page order instead of sorting the matches;
+// the prefixes serve the unpaged year and name queries
+@CompoundIndexes({
+        @CompoundIndex(name = "year_name_id", def = "{'year': 1, 'name': 1, '_id': 1}"),
+        @CompoundIndex(name = "year_id", def = "{'year': 1, '_id': 1}"),
+        @CompoundIndex(name = "name_id", def = "{'name': 1, '_id': 1}")
+})
 public class MovieInfo {
 
+    public static final Set<String> FIELDS = Set.of("movieInfoId", "name", "year", "cast", "release_date");
+
     @Id
     private String movieInfoId;
 
@@ -28,6 +43,8 @@ public class MovieInfo {
     @Positive(message = "movieInfo.year must be a Positive value")
     private Integer year;
 
+    // multikey, one index entry per cast member
+    @Indexed
     private List<@NotBlank(message = "movieInfo.cast must be present") String> cast;
 
     private LocalDate release_date;
@@ -0,0 +1,20 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of one bulk write of a batch load: the movie infos it inserted, with their ids, and the ones it rejected.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoBatchChunk {
+
+    private List<MovieInfo> inserted;
+
+    private List<MovieInfoBatchResult.Failure> failures;
+}
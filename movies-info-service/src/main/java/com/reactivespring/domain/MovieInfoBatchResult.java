@@ -0,0 +1,28 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoBatchResult {
+
+    private long inserted;
+
+    private List<Failure> failures;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Failure {
+
+        // position of the movie info in the request body, from 0
+        private long index;
+
+        private String message;
+    }
+}
@@ -0,0 +1,31 @@
+package com.reactivespring.domain;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoEvent {
+
+    public enum Type {
+        ADDED, UPDATED, DELETED
+    }
+
+    private long eventId;
+
+    // start of the process that numbered the event, ids only compare within one epoch
+    private long epoch;
+
+    private Type type;
+
+    private Instant publishedAt;
+
+    // unwrapped, so clients that only know MovieInfo can keep reading the stream
+    @JsonUnwrapped
+    private MovieInfo movieInfo;
+}
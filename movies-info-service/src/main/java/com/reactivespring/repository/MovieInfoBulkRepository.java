@@ -0,0 +1,16 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.MovieInfo;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+public interface MovieInfoBulkRepository {
+
+    /**
+     * Inserts {@code movieInfos} in a single unordered bulk write, so one bad document does not stop the others, and
+     * sets the generated id on each inserted movie info. Completes with the write errors keyed by list position.
+     */
+    Mono<Map<Integer, String>> insertUnordered(List<MovieInfo> movieInfos);
+}
@@ -0,0 +1,56 @@
+package com.reactivespring.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.reactivespring.domain.MovieInfo;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class MovieInfoBulkRepositoryImpl implements MovieInfoBulkRepository {
+
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public MovieInfoBulkRepositoryImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    // insertAll stops at the first failing document, the driver's unordered insertMany carries on and reports them all
+    @Override
+    public Mono<Map<Integer, String>> insertUnordered(List<MovieInfo> movieInfos) {
+        List<Document> documents = movieInfos.stream()
+                                             .map(this::toDocument)
+                                             .collect(Collectors.toList());
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(MovieInfo.class))
+                                    .flatMap(collection -> Mono.from(collection.insertMany(documents,
+                                                                                           new InsertManyOptions().ordered(false))))
+                                    .map(result -> Map.<Integer, String>of())
+                                    .onErrorResume(MongoBulkWriteException.class,
+                                                   e -> Mono.just(e.getWriteErrors()
+                                                                   .stream()
+                                                                   .collect(Collectors.toMap(BulkWriteError::getIndex,
+                                                                                             BulkWriteError::getMessage))))
+                                    .doOnNext(writeErrors -> {
+                                        // the driver adds the generated _id to each document it sends
+                                        for (int i = 0; i < movieInfos.size(); i++) {
+                                            if (!writeErrors.containsKey(i)) {
+                                                movieInfos.get(i)
+                                                          .setMovieInfoId(String.valueOf(documents.get(i)
+                                                                                                  .get("_id")));
+                                            }
+                                        }
+                                    });
+    }
+
+    private Document toDocument(MovieInfo movieInfo) {
+        Document document = new Document();
+        reactiveMongoTemplate.getConverter()
+                             .write(movieInfo, document);
+        return document;
+    }
+}
@@ -0,0 +1,22 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.MovieInfo;
+import org.springframework.data.mongodb.core.query.Criteria;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+public interface MovieInfoProjectionRepository {
+
+    /**
+     * Finds the movie infos matching {@code criteria}, reading only {@code fields} (and the id) from Mongo.
+     */
+    Flux<MovieInfo> findAllProjected(Criteria criteria, Collection<String> fields);
+
+    /**
+     * Finds up to {@code limit} movie infos matching {@code criteria} in id order, starting after {@code afterId} (or
+     * from the first one when null). Seeks on the id index instead of skipping, so a late page costs what the first
+     * one does. An empty {@code fields} reads whole documents.
+     */
+    Flux<MovieInfo> findPage(Criteria criteria, Collection<String> fields, String afterId, int limit);
+}
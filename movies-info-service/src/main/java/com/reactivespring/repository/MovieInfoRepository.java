@@ -4,9 +4,13 @@ import com.reactivespring.domain.MovieInfo;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 
-public interface MovieInfoRepository extends ReactiveMongoRepository<MovieInfo, String> {
+public interface MovieInfoRepository extends ReactiveMongoRepository<MovieInfo, String>, MovieInfoProjectionRepository,
+                                             MovieInfoBulkRepository {
 
     Flux<MovieInfo> findByYear(Integer year);
 
     Flux<MovieInfo> findByName(String movieName);
+
+    Flux<MovieInfo> findByYearAndName(Integer year, String movieName);
+
 }
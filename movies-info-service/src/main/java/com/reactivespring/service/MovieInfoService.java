@@ -1,18 +1,34 @@
 package com.reactivespring.service;
 
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoBatchChunk;
+import com.reactivespring.domain.MovieInfoBatchResult;
 import com.reactivespring.repository.MovieInfoRepository;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class MovieInfoService {
 
     MovieInfoRepository movieInfoRepository;
 
-    public MovieInfoService(MovieInfoRepository movieInfoRepository) {
+    private Validator validator;
+
+    public MovieInfoService(MovieInfoRepository movieInfoRepository, Validator validator) {
         this.movieInfoRepository = movieInfoRepository;
+        this.validator = validator;
     }
 
     public Mono<MovieInfo> addMovieInfo(MovieInfo movieInfo) {
@@ -20,6 +36,56 @@ public class MovieInfoService {
         return movieInfoRepository.save(movieInfo);
     }
 
+    // one chunk is written at a time and, without prefetch, the next is only read from the body after that, so a
+    // large load is held to chunkSize movie infos in memory; an invalid or rejected movie info fails alone, not its
+    // chunk
+    public Flux<MovieInfoBatchChunk> addMovieInfos(Flux<MovieInfo> movieInfos, int chunkSize) {
+        return movieInfos.index()
+                         .buffer(chunkSize)
+                         .concatMap(this::insertChunk, 0);
+    }
+
+    private Mono<MovieInfoBatchChunk> insertChunk(List<Tuple2<Long, MovieInfo>> chunk) {
+        List<MovieInfoBatchResult.Failure> failures = new ArrayList<>();
+        List<Long> validIndexes = new ArrayList<>();
+        List<MovieInfo> validMovieInfos = new ArrayList<>();
+        for (Tuple2<Long, MovieInfo> indexedMovieInfo : chunk) {
+            String violations = violations(indexedMovieInfo.getT2());
+            if (violations.isEmpty()) {
+                validIndexes.add(indexedMovieInfo.getT1());
+                validMovieInfos.add(indexedMovieInfo.getT2());
+            } else {
+                failures.add(new MovieInfoBatchResult.Failure(indexedMovieInfo.getT1(), violations));
+            }
+        }
+        if (validMovieInfos.isEmpty()) {
+            return Mono.just(new MovieInfoBatchChunk(List.of(), failures));
+        }
+        return movieInfoRepository.insertUnordered(validMovieInfos)
+                                  .map(writeErrors -> {
+                                      List<MovieInfo> inserted = new ArrayList<>();
+                                      for (int i = 0; i < validMovieInfos.size(); i++) {
+                                          if (writeErrors.containsKey(i)) {
+                                              failures.add(new MovieInfoBatchResult.Failure(validIndexes.get(i),
+                                                                                            writeErrors.get(i)));
+                                          } else {
+                                              inserted.add(validMovieInfos.get(i));
+                                          }
+                                      }
+                                      failures.sort(Comparator.comparingLong(MovieInfoBatchResult.Failure::getIndex));
+                                      return new MovieInfoBatchChunk(inserted, failures);
+                                  });
+    }
+
+    // same messages, in the same order, as a single POST /v1/movieinfos rejected by @Valid
+    private String violations(MovieInfo movieInfo) {
+        return validator.validate(movieInfo)
+                        .stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(","));
+    }
+
     public Flux<MovieInfo> getAllMovieInfos() {
         return movieInfoRepository.findAll();
     }
@@ -28,6 +94,48 @@ public class MovieInfoService {
         return movieInfoRepository.findById(id);
     }
 
+    public Flux<MovieInfo> getMovieInfosByIds(List<String> ids) {
+        return movieInfoRepository.findAllById(ids);
+    }
+
+    public Flux<MovieInfo> getMovieInfos(Integer year, String movieName, Set<String> fields) {
+        return movieInfoRepository.findAllProjected(criteria(year, movieName), fields);
+    }
+
+    public Flux<MovieInfo> getMovieInfoPage(Integer year, String movieName, Set<String> fields, String afterId,
+                                            int limit) {
+        return movieInfoRepository.findPage(criteria(year, movieName), fields, afterId, limit);
+    }
+
+    private static Criteria criteria(Integer year, String movieName) {
+        if (year != null && movieName != null) {
+            return Criteria.where("year")
+                           .is(year)
+                           .and("name")
+                           .is(movieName);
+        }
+        if (year != null) {
+            return Criteria.where("year")
+                           .is(year);
+        }
+        if (movieName != null) {
+            return Criteria.where("name")
+                           .is(movieName);
+        }
+        return new Criteria();
+    }
+
+    public Mono<MovieInfo> getMovieInfoById(String id, Set<String> fields) {
+        return movieInfoRepository.findAllProjected(Criteria.where("movieInfoId")
+                                                            .is(id), fields)
+                                  .next();
+    }
+
+    public Flux<MovieInfo> getMovieInfosByIds(List<String> ids, Set<String> fields) {
+        return movieInfoRepository.findAllProjected(Criteria.where("movieInfoId")
+                                                            .in(ids), fields);
+    }
+
     public Mono<MovieInfo> updateMovieInfo(MovieInfo updatedMovieInfo, String id) {
 
         return movieInfoRepository.findById(id)
@@ -51,4 +159,8 @@ public class MovieInfoService {
     public Flux<MovieInfo> getMovieInfoByName(String movieName) {
         return movieInfoRepository.findByName(movieName);
     }
+
+    public Flux<MovieInfo> getMovieInfoByYearAndName(Integer year, String movieName) {
+        return movieInfoRepository.findByYearAndName(year, movieName);
+    }
 }
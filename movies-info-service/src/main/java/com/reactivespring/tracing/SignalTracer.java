@@ -0,0 +1,144 @@
+package com.reactivespring.tracing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Sampled signal tracing, a cheap stand-in for {@code .log()} on request pipelines. As a filter it samples one
+ * in {@code tracing.sampleRate} requests, and every request that carries {@link #HEADER}, and puts the trace into
+ * the Reactor context. Pipelines wrapped with {@link #mono} or {@link #flux} record subscribe, first element and
+ * terminal signals of sampled requests into a fixed-size ring buffer that {@link #dump} reads on demand.
+ * Unsampled requests only pay a context lookup per wrapped pipeline.
+ */
+@Component
+@Slf4j
+public class SignalTracer implements WebFilter {
+
+    public static final String HEADER = "X-Trace-Id";
+
+    private static final String CONTEXT_KEY = SignalTracer.class.getName();
+
+    private final int sampleRate;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicReferenceArray<TraceEvent> ring;
+    private final AtomicLong nextSlot = new AtomicLong();
+
+    public SignalTracer(@Value("${tracing.sampleRate:100}") int sampleRate,
+                        @Value("${tracing.bufferSize:4096}") int bufferSize) {
+        this.sampleRate = sampleRate;
+        this.ring = new AtomicReferenceArray<>(bufferSize);
+        log.info("Signal tracing samples 1 in {} requests, buffer size : {}", sampleRate, bufferSize);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String traceId = exchange.getRequest()
+                                 .getHeaders()
+                                 .getFirst(HEADER);
+        if (traceId == null && !sampled()) {
+            return chain.filter(exchange);
+        }
+
+        Trace trace = new Trace(traceId != null ? traceId : Long.toHexString(ThreadLocalRandom.current()
+                                                                                               .nextLong()));
+        exchange.getResponse()
+                .getHeaders()
+                .set(HEADER, trace.traceId);
+        return chain.filter(exchange)
+                    .contextWrite(context -> context.put(CONTEXT_KEY, trace));
+    }
+
+    private boolean sampled() {
+        return sampleRate > 0 && requests.incrementAndGet() % sampleRate == 0;
+    }
+
+    public static Optional<String> currentTraceId(ContextView context) {
+        return context.<Trace>getOrEmpty(CONTEXT_KEY)
+                      .map(trace -> trace.traceId);
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> mono(String operation) {
+        return mono -> Mono.deferContextual(context -> {
+            Optional<Trace> sampledTrace = context.getOrEmpty(CONTEXT_KEY);
+            if (sampledTrace.isEmpty()) {
+                return mono;
+            }
+            Trace trace = sampledTrace.get();
+            return mono.doOnSubscribe(subscription -> record(trace, operation, "onSubscribe", 0, null))
+                       .doOnSuccess(value -> record(trace, operation, "onComplete", value != null ? 1 : 0, null))
+                       .doOnError(error -> record(trace, operation, "onError", 0, error.toString()))
+                       .doOnCancel(() -> record(trace, operation, "cancel", 0, null));
+        });
+    }
+
+    public <T> Function<Flux<T>, Flux<T>> flux(String operation) {
+        return flux -> Flux.deferContextual(context -> {
+            Optional<Trace> sampledTrace = context.getOrEmpty(CONTEXT_KEY);
+            if (sampledTrace.isEmpty()) {
+                return flux;
+            }
+            Trace trace = sampledTrace.get();
+            AtomicLong elements = new AtomicLong();
+            return flux.doOnSubscribe(subscription -> record(trace, operation, "onSubscribe", 0, null))
+                       .doOnNext(element -> {
+                           if (elements.incrementAndGet() == 1) {
+                               record(trace, operation, "onNext", 1, null);
+                           }
+                       })
+                       .doOnComplete(() -> record(trace, operation, "onComplete", elements.get(), null))
+                       .doOnError(error -> record(trace, operation, "onError", elements.get(), error.toString()))
+                       .doOnCancel(() -> record(trace, operation, "cancel", elements.get(), null));
+        });
+    }
+
+    public List<TraceEvent> dump(@Nullable String traceId) {
+        long end = nextSlot.get();
+        long start = Math.max(0, end - ring.length());
+        List<TraceEvent> events = new ArrayList<>();
+        for (long slot = start; slot < end; slot++) {
+            TraceEvent event = ring.get((int) (slot % ring.length()));
+            if (event != null && (traceId == null || traceId.equals(event.getTraceId()))) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private void record(Trace trace, String operation, String signal, long elements, @Nullable String error) {
+        TraceEvent event = new TraceEvent(trace.traceId,
+                                          operation,
+                                          signal,
+                                          (System.nanoTime() - trace.startNanos) / 1_000,
+                                          elements,
+                                          Thread.currentThread()
+                                                .getName(),
+                                          error);
+        ring.set((int) (nextSlot.getAndIncrement() % ring.length()), event);
+    }
+
+    private static final class Trace {
+
+        private final String traceId;
+        private final long startNanos = System.nanoTime();
+
+        private Trace(String traceId) {
+            this.traceId = traceId;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.reactivespring.controller;
 
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoBatchResult;
+import com.reactivespring.domain.MovieInfoEvent;
 import com.reactivespring.repository.MovieInfoRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,25 +10,39 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 import java.net.URI;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
 @AutoConfigureWebTestClient
+// small chunks, so a batch load spans several bulk writes, and a replay ring smaller than a batch load
+@TestPropertySource(properties = {"movieInfoBatch.chunkSize: 2", "movieInfoStream.replaySize: 4"})
 class MoviesInfoControllerIntegrationTest {
 
     static String MOVIES_INFO_URI = "/v1/movieinfos";
+    static String NEXT_PAGE_HEADER = "X-Next-Page-Token";
     @Autowired
     MovieInfoRepository movieInfoRepository;
     @Autowired
@@ -85,6 +101,150 @@ class MoviesInfoControllerIntegrationTest {
 
     }
 
+    @Test
+    void addMovieInfos_batch() {
+        //given
+        List<MovieInfo> movieInfos = List.of(new MovieInfo(null,
+                                                           "Thor: Love and Thunder",
+                                                           2022,
+                                                           List.of("Christian Bale", "Natalie Portman"),
+                                                           LocalDate.parse("2022-07-06")),
+                                             new MovieInfo(null,
+                                                           "",
+                                                           -2022,
+                                                           List.of("Christian Bale"),
+                                                           LocalDate.parse("2022-07-06")),
+                                             new MovieInfo("abc",
+                                                           "Dark Knight Rises",
+                                                           2012,
+                                                           List.of("Christian Bale", "Tom Hardy"),
+                                                           LocalDate.parse("2012-07-20")));
+
+        //when
+        webTestClient.post()
+                     .uri(MOVIES_INFO_URI + "/batch")
+                     .bodyValue(movieInfos)
+                     .exchange()
+                     .expectStatus()
+                     .isOk()
+                     .expectBody(MovieInfoBatchResult.class)
+                     .consumeWith(movieInfoBatchResultEntityExchangeResult -> {
+                         MovieInfoBatchResult result = movieInfoBatchResultEntityExchangeResult.getResponseBody();
+                         assertNotNull(result);
+                         assertEquals(1, result.getInserted());
+                         assertEquals(2, result.getFailures()
+                                               .size());
+                         assertEquals(1, result.getFailures()
+                                               .get(0)
+                                               .getIndex());
+                         assertEquals("movieInfo.name must be present,movieInfo.year must be a Positive value",
+                                      result.getFailures()
+                                            .get(0)
+                                            .getMessage());
+                         assertEquals(2, result.getFailures()
+                                               .get(1)
+                                               .getIndex());
+                     });
+
+        //then
+        StepVerifier.create(movieInfoRepository.count())
+                    .expectNext(4L)
+                    .verifyComplete();
+    }
+
+    @Test
+    void addMovieInfos_batch_ndjson() {
+        //given
+        String movieInfos = "{\"name\":\"Thor: Love and Thunder\",\"year\":2022,\"cast\":[\"Natalie Portman\"]}\n"
+                + "{\"name\":\"Batman Returns\",\"year\":1992,\"cast\":[\"Michael Keaton\"]}\n"
+                + "{\"name\":\"Tenet\",\"year\":2020,\"cast\":[\"John David Washington\"]}\n";
+
+        //when
+        webTestClient.post()
+                     .uri(MOVIES_INFO_URI + "/batch")
+                     .contentType(MediaType.APPLICATION_NDJSON)
+                     .bodyValue(movieInfos)
+                     .exchange()
+                     .expectStatus()
+                     .isOk()
+                     .expectBody(MovieInfoBatchResult.class)
+                     .consumeWith(movieInfoBatchResultEntityExchangeResult -> {
+                         MovieInfoBatchResult result = movieInfoBatchResultEntityExchangeResult.getResponseBody();
+                         assertNotNull(result);
+                         assertEquals(3, result.getInserted());
+                         assertEquals(0, result.getFailures()
+                                               .size());
+                     });
+
+        //then
+        StepVerifier.create(movieInfoRepository.findByName("Tenet"))
+                    .expectNextCount(1)
+                    .verifyComplete();
+    }
+
+    @Test
+    void addMovieInfos_batch_largerThanReplay_liveSubscriberSeesEveryEvent() {
+        //given
+        webTestClient.post()
+                     .uri(MOVIES_INFO_URI)
+                     .bodyValue(new MovieInfo(null,
+                                              "Tenet",
+                                              2020,
+                                              List.of("John David Washington"),
+                                              LocalDate.parse("2020-08-26")))
+                     .exchange()
+                     .expectStatus()
+                     .isCreated();
+
+        Flux<MovieInfoEvent> eventFlux = webTestClient.get()
+                                                      .uri(MOVIES_INFO_URI + "/stream")
+                                                      .exchange()
+                                                      .expectStatus()
+                                                      .is2xxSuccessful()
+                                                      .returnResult(MovieInfoEvent.class)
+                                                      .getResponseBody();
+
+        List<MovieInfo> movieInfos = IntStream.rangeClosed(1, 10)
+                                              .mapToObj(i -> new MovieInfo(null,
+                                                                           "Movie " + i,
+                                                                           2000 + i,
+                                                                           List.of("Christian Bale"),
+                                                                           LocalDate.parse("2022-07-06")))
+                                              .collect(Collectors.toList());
+
+        //when
+        webTestClient.post()
+                     .uri(MOVIES_INFO_URI + "/batch")
+                     .bodyValue(movieInfos)
+                     .exchange()
+                     .expectStatus()
+                     .isOk();
+
+        //then
+        List<MovieInfoEvent> events = eventFlux.take(11)
+                                               .collectList()
+                                               .block(Duration.ofSeconds(10));
+        assertNotNull(events);
+        assertEquals("Tenet", events.get(0)
+                                    .getMovieInfo()
+                                    .getName());
+        for (int i = 1; i < events.size(); i++) {
+            assertEquals(events.get(i - 1)
+                               .getEventId() + 1, events.get(i)
+                                                        .getEventId());
+            assertEquals(MovieInfoEvent.Type.ADDED, events.get(i)
+                                                          .getType());
+        }
+        assertEquals(movieInfos.stream()
+                               .map(MovieInfo::getName)
+                               .collect(Collectors.toSet()),
+                     events.subList(1, events.size())
+                           .stream()
+                           .map(event -> event.getMovieInfo()
+                                              .getName())
+                           .collect(Collectors.toSet()));
+    }
+
     @Test
     void getAllMovieInfos_Stream() {
 
@@ -124,6 +284,168 @@ class MoviesInfoControllerIntegrationTest {
                     .verify();
     }
 
+    @Test
+    void updateMovieInfo_publishesEvent() {
+
+        webTestClient.put()
+                     .uri(MOVIES_INFO_URI + "/{id}", "abc")
+                     .bodyValue(new MovieInfo(null,
+                                              "Dark Knight Rises 1",
+                                              2012,
+                                              List.of("Christian Bale", "Tom Hardy"),
+                                              LocalDate.parse("2012-07-20")))
+                     .exchange()
+                     .expectStatus()
+                     .isOk();
+
+        //when
+        Flux<MovieInfoEvent> eventFlux = webTestClient.get()
+                                                      .uri(MOVIES_INFO_URI + "/stream")
+                                                      .exchange()
+                                                      .expectStatus()
+                                                      .is2xxSuccessful()
+                                                      .returnResult(MovieInfoEvent.class)
+                                                      .getResponseBody();
+
+        //then
+        StepVerifier.create(eventFlux)
+                    .assertNext(event -> {
+                        assertEquals(MovieInfoEvent.Type.UPDATED, event.getType());
+                        assertEquals("abc", event.getMovieInfo().getMovieInfoId());
+                        assertEquals("Dark Knight Rises 1", event.getMovieInfo().getName());
+                        assertNotNull(event.getPublishedAt());
+                    })
+                    .thenCancel()
+                    .verify();
+    }
+
+    @Test
+    void getAllMovieInfos_Stream_gzip() {
+
+        webTestClient.post()
+                     .uri(MOVIES_INFO_URI)
+                     .bodyValue(new MovieInfo(null,
+                                              "Thor: Love and Thunder",
+                                              2022,
+                                              List.of("Christian Bale", "Natalie Portman"),
+                                              LocalDate.parse("2022-07-06")))
+                     .exchange()
+                     .expectStatus()
+                     .isCreated();
+
+        //when
+        Flux<DataBuffer> compressedStream = webTestClient.get()
+                                                         .uri(MOVIES_INFO_URI + "/stream")
+                                                         .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                                                         .exchange()
+                                                         .expectStatus()
+                                                         .is2xxSuccessful()
+                                                         .expectHeader()
+                                                         .valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                                                         .returnResult(DataBuffer.class)
+                                                         .getResponseBody();
+
+        //then the compressed event is flushed right away instead of waiting for more data
+        StepVerifier.create(compressedStream)
+                    .expectNextCount(1)
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void getAllMovieInfos_Stream_resume() {
+
+        List.of("Thor: Love and Thunder", "Doctor Strange", "Black Panther")
+            .forEach(name -> webTestClient.post()
+                                          .uri(MOVIES_INFO_URI)
+                                          .bodyValue(new MovieInfo(null,
+                                                                   name,
+                                                                   2022,
+                                                                   List.of("Christian Bale"),
+                                                                   LocalDate.parse("2022-07-06")))
+                                          .exchange()
+                                          .expectStatus()
+                                          .isCreated());
+
+        MovieInfoEvent latestEvent = webTestClient.get()
+                                                  .uri(MOVIES_INFO_URI + "/stream")
+                                                  .exchange()
+                                                  .expectStatus()
+                                                  .is2xxSuccessful()
+                                                  .returnResult(MovieInfoEvent.class)
+                                                  .getResponseBody()
+                                                  .blockFirst();
+        assertNotNull(latestEvent);
+        long latestEventId = latestEvent.getEventId();
+
+        //when
+        Flux<MovieInfoEvent> resumedFlux = webTestClient.get()
+                                                        .uri(MOVIES_INFO_URI + "/stream")
+                                                        .header("Last-Event-ID",
+                                                                latestEvent.getEpoch() + ":" + (latestEventId - 2))
+                                                        .exchange()
+                                                        .expectStatus()
+                                                        .is2xxSuccessful()
+                                                        .returnResult(MovieInfoEvent.class)
+                                                        .getResponseBody();
+
+        //then
+        StepVerifier.create(resumedFlux)
+                    .assertNext(event -> {
+                        assertEquals(latestEventId - 1, event.getEventId());
+                        assertEquals("Doctor Strange", event.getMovieInfo().getName());
+                    })
+                    .assertNext(event -> assertEquals(latestEventId, event.getEventId()))
+                    .thenCancel()
+                    .verify();
+    }
+
+    @Test
+    void getAllMovieInfos_Stream_resumeFromAnotherEpoch() {
+
+        List.of("Thor: Love and Thunder", "Doctor Strange", "Black Panther")
+            .forEach(name -> webTestClient.post()
+                                          .uri(MOVIES_INFO_URI)
+                                          .bodyValue(new MovieInfo(null,
+                                                                   name,
+                                                                   2022,
+                                                                   List.of("Christian Bale"),
+                                                                   LocalDate.parse("2022-07-06")))
+                                          .exchange()
+                                          .expectStatus()
+                                          .isCreated());
+
+        MovieInfoEvent latestEvent = webTestClient.get()
+                                                  .uri(MOVIES_INFO_URI + "/stream")
+                                                  .exchange()
+                                                  .expectStatus()
+                                                  .is2xxSuccessful()
+                                                  .returnResult(MovieInfoEvent.class)
+                                                  .getResponseBody()
+                                                  .blockFirst();
+        assertNotNull(latestEvent);
+
+        //when the client last saw a higher event id of a process that has since restarted
+        Flux<MovieInfoEvent> resumedFlux = webTestClient.get()
+                                                        .uri(MOVIES_INFO_URI + "/stream")
+                                                        .header("Last-Event-ID", (latestEvent.getEpoch() - 1) + ":"
+                                                                + (latestEvent.getEventId() + 100))
+                                                        .exchange()
+                                                        .expectStatus()
+                                                        .is2xxSuccessful()
+                                                        .returnResult(MovieInfoEvent.class)
+                                                        .getResponseBody();
+
+        //then the replay ring is sent from its start instead of nothing
+        StepVerifier.create(resumedFlux)
+                    .assertNext(event -> {
+                        assertEquals(latestEvent.getEpoch(), event.getEpoch());
+                        assertTrue(event.getEventId() <= latestEvent.getEventId() - 2);
+                    })
+                    .thenCancel()
+                    .verify();
+    }
+
     @Test
     void getAllMovieInfos() {
 
@@ -137,6 +459,70 @@ class MoviesInfoControllerIntegrationTest {
                      .hasSize(3);
     }
 
+    @Test
+    void getAllMovieInfos_paged() {
+
+        //when
+        EntityExchangeResult<List<MovieInfo>> firstPage = webTestClient.get()
+                                                                       .uri(MOVIES_INFO_URI + "?limit=2")
+                                                                       .exchange()
+                                                                       .expectStatus()
+                                                                       .is2xxSuccessful()
+                                                                       .expectBodyList(MovieInfo.class)
+                                                                       .hasSize(2)
+                                                                       .returnResult();
+        String nextPageToken = firstPage.getResponseHeaders()
+                                        .getFirst(NEXT_PAGE_HEADER);
+        assertNotNull(nextPageToken);
+        EntityExchangeResult<List<MovieInfo>> lastPage = webTestClient.get()
+                                                                      .uri(MOVIES_INFO_URI + "?limit=2&after=" + nextPageToken)
+                                                                      .exchange()
+                                                                      .expectStatus()
+                                                                      .is2xxSuccessful()
+                                                                      .expectBodyList(MovieInfo.class)
+                                                                      .hasSize(1)
+                                                                      .returnResult();
+
+        //then
+        assertNull(lastPage.getResponseHeaders()
+                           .getFirst(NEXT_PAGE_HEADER));
+        long distinctIds = Stream.of(firstPage.getResponseBody(), lastPage.getResponseBody())
+                                 .flatMap(List::stream)
+                                 .map(MovieInfo::getMovieInfoId)
+                                 .distinct()
+                                 .count();
+        assertEquals(3, distinctIds);
+    }
+
+    @Test
+    void getAllMovieInfos_invalidPageToken() {
+
+        //when
+        webTestClient.get()
+                     .uri(MOVIES_INFO_URI + "?limit=2&after=not*a*token")
+                     .exchange()
+                     .expectStatus()
+                     .isBadRequest();
+    }
+
+    @Test
+    void getAllMovieInfos_smile() {
+
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+
+        //when
+        webTestClient.get()
+                     .uri(MOVIES_INFO_URI)
+                     .accept(smile, MediaType.APPLICATION_JSON)
+                     .exchange()
+                     .expectStatus()
+                     .is2xxSuccessful()
+                     .expectHeader()
+                     .contentTypeCompatibleWith(smile)
+                     .expectBodyList(MovieInfo.class)
+                     .hasSize(3);
+    }
+
     @Test
     void getMovieInfoByYear() {
 
@@ -209,6 +595,86 @@ class MoviesInfoControllerIntegrationTest {
                      .isEqualTo("Dark Knight Rises");
     }
 
+    @Test
+    void getMovieInfoByID_fields() {
+        //given
+        String movieInfoId = "abc";
+
+        //when
+        webTestClient.get()
+                     .uri(MOVIES_INFO_URI + "/{id}?fields=name,year", movieInfoId)
+                     .exchange()
+                     .expectStatus()
+                     .is2xxSuccessful()
+                     .expectBody()
+                     .jsonPath("$.movieInfoId")
+                     .isEqualTo("abc")
+                     .jsonPath("$.name")
+                     .isEqualTo("Dark Knight Rises")
+                     .jsonPath("$.year")
+                     .isEqualTo(2012)
+                     .jsonPath("$.cast")
+                     .doesNotExist()
+                     .jsonPath("$.release_date")
+                     .doesNotExist();
+    }
+
+    @Test
+    void getMovieInfoByYear_fields() {
+
+        URI uri = UriComponentsBuilder.fromUriString(MOVIES_INFO_URI)
+                                      .queryParam("year", 2005)
+                                      .queryParam("fields", "name")
+                                      .buildAndExpand()
+                                      .toUri();
+
+        //when
+        webTestClient.get()
+                     .uri(uri)
+                     .exchange()
+                     .expectStatus()
+                     .is2xxSuccessful()
+                     .expectBodyList(MovieInfo.class)
+                     .value(movieInfos -> {
+                         assertEquals(1, movieInfos.size());
+                         assertEquals("Batman Begins",
+                                      movieInfos.get(0)
+                                                .getName());
+                         assertNull(movieInfos.get(0)
+                                              .getCast());
+                     });
+    }
+
+    @Test
+    void getAllMovieInfos_unknownField() {
+
+        //when
+        webTestClient.get()
+                     .uri(MOVIES_INFO_URI + "?fields=name,budget")
+                     .exchange()
+                     .expectStatus()
+                     .isBadRequest();
+    }
+
+    @Test
+    void getMovieInfosByIds() {
+
+        //when
+        webTestClient.post()
+                     .uri(MOVIES_INFO_URI + "/bulk")
+                     .bodyValue(List.of("abc", "def"))
+                     .exchange()
+                     .expectStatus()
+                     .is2xxSuccessful()
+                     .expectBodyList(MovieInfo.class)
+                     .value(movieInfos -> {
+                         assertEquals(1, movieInfos.size());
+                         assertEquals("Dark Knight Rises",
+                                      movieInfos.get(0)
+                                                .getName());
+                     });
+    }
+
     @Test
     void updateMovieInfo() {
         //given
@@ -283,4 +749,4 @@ class MoviesInfoControllerIntegrationTest {
     }
 
 
-}
\ No newline at end of file
+}
\ No newline at end of file
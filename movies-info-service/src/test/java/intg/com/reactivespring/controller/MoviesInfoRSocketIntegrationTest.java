@@ -0,0 +1,121 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.repository.MovieInfoRepository;
+import io.rsocket.exceptions.InvalidException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.rsocket.context.LocalRSocketServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.rsocket.server.port: 0")
+class MoviesInfoRSocketIntegrationTest {
+
+    @Autowired
+    MovieInfoRepository movieInfoRepository;
+
+    @Autowired
+    RSocketRequester.Builder requesterBuilder;
+
+    @LocalRSocketServerPort
+    int port;
+
+    RSocketRequester requester;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoRepository.saveAll(List.of(new MovieInfo("abc",
+                                                          "Dark Knight Rises",
+                                                          2012,
+                                                          List.of("Christian Bale", "Tom Hardy"),
+                                                          LocalDate.parse("2012-07-20")),
+                                            new MovieInfo("def",
+                                                          "Batman Begins",
+                                                          2005,
+                                                          List.of("Christian Bale", "Michael Cane"),
+                                                          LocalDate.parse("2005-06-15"))))
+                           .blockLast();
+        requester = requesterBuilder.tcp("localhost", port);
+    }
+
+    @AfterEach
+    void tearDown() {
+        requester.dispose();
+        movieInfoRepository.deleteAll()
+                           .block();
+    }
+
+    @Test
+    void getMovieInfoById() {
+
+        //when
+        StepVerifier.create(requester.route("movieinfos.{id}", "abc")
+                                     .retrieveMono(MovieInfo.class))
+                    //then
+                    .assertNext(movieInfo -> assertEquals("Dark Knight Rises", movieInfo.getName()))
+                    .verifyComplete();
+    }
+
+    @Test
+    void getMovieInfoById_fields() {
+
+        //when
+        StepVerifier.create(requester.route("movieinfos.{id}", "abc")
+                                     .data("name")
+                                     .retrieveMono(MovieInfo.class))
+                    //then
+                    .assertNext(movieInfo -> {
+                        assertEquals("Dark Knight Rises", movieInfo.getName());
+                        assertNull(movieInfo.getCast());
+                    })
+                    .verifyComplete();
+    }
+
+    @Test
+    void getMovieInfoById_unknownField() {
+
+        //when
+        StepVerifier.create(requester.route("movieinfos.{id}", "abc")
+                                     .data("budget")
+                                     .retrieveMono(MovieInfo.class))
+                    //then
+                    .expectError(InvalidException.class)
+                    .verify();
+    }
+
+    @Test
+    void getMovieInfoById_NotFound() {
+
+        //when
+        StepVerifier.create(requester.route("movieinfos.{id}", "xyz")
+                                     .retrieveMono(MovieInfo.class))
+                    //then
+                    .verifyComplete();
+    }
+
+    @Test
+    void getMovieInfosByIds() {
+
+        //when
+        StepVerifier.create(requester.route("movieinfos.bulk")
+                                     .data(List.of("abc", "def", "xyz"))
+                                     .retrieveFlux(MovieInfo.class))
+                    //then
+                    .expectNextCount(2)
+                    .verifyComplete();
+    }
+}
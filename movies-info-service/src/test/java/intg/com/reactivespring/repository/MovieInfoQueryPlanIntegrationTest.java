@@ -0,0 +1,146 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.config.MongoIndexInitializer;
+import com.reactivespring.domain.MovieInfo;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Explains the filter behind every filtered {@link MovieInfoRepository} query against the declared indexes and fails
+ * when the winning plan scans the whole collection, or for keyset pages, when it sorts the matches in memory.
+ */
+@DataMongoTest
+@ActiveProfiles("test")
+@Import(MongoIndexInitializer.class)
+class MovieInfoQueryPlanIntegrationTest {
+
+    @Autowired
+    MovieInfoRepository movieInfoRepository;
+
+    @Autowired
+    ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    MongoIndexInitializer mongoIndexInitializer;
+
+    @BeforeEach
+    void setUp() {
+        List<MovieInfo> movieInfos = List.of(
+                new MovieInfo(null, "Batman Begins", 2005, List.of("Christian Bale", "Michael Cane"),
+                        LocalDate.parse("2005-06-15")),
+                new MovieInfo(null, "The Dark Knight", 2008, List.of("Christian Bale", "HeathLedger"),
+                        LocalDate.parse("2008-07-18")),
+                new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale", "Tom Hardy"),
+                        LocalDate.parse("2012-07-20")));
+
+        movieInfoRepository.saveAll(movieInfos)
+                           .blockLast();
+        mongoIndexInitializer.ensureIndexes()
+                             .block();
+    }
+
+    @AfterEach
+    void tearDown() {
+        movieInfoRepository.deleteAll()
+                           .block();
+    }
+
+    // the filters Spring Data derives for each repository and service query, with the indexes each one may use
+    static Stream<Arguments> repositoryQueries() {
+        return Stream.of(
+                Arguments.of("findById", new Document("_id", "abc"), List.of("_id_")),
+                Arguments.of("findAllById", new Document("_id", new Document("$in", List.of("abc", "def"))),
+                             List.of("_id_")),
+                Arguments.of("findByYear", new Document("year", 2005), List.of("year_name_id", "year_id")),
+                Arguments.of("findByName", new Document("name", "Batman Begins"), List.of("name_id")),
+                Arguments.of("findByYearAndName", new Document("year", 2005).append("name", "Batman Begins"),
+                             List.of("year_name_id", "year_id", "name_id")),
+                Arguments.of("cast member", new Document("cast", "Christian Bale"), List.of("cast")));
+    }
+
+    // the filters behind findPage, first and later pages, each sorted on _id
+    static Stream<Arguments> pageQueries() {
+        Document afterId = new Document("_id", new Document("$gt", new ObjectId()));
+        return Stream.of(
+                Arguments.of("page", new Document(), List.of("_id_")),
+                Arguments.of("page after", afterId, List.of("_id_")),
+                Arguments.of("page by year", new Document("year", 2005), List.of("year_id")),
+                Arguments.of("page by year after", new Document("$and", List.of(new Document("year", 2005), afterId)),
+                             List.of("year_id")),
+                Arguments.of("page by name", new Document("name", "Batman Begins"), List.of("name_id")),
+                Arguments.of("page by name after",
+                             new Document("$and", List.of(new Document("name", "Batman Begins"), afterId)),
+                             List.of("name_id")),
+                Arguments.of("page by year and name", new Document("year", 2005).append("name", "Batman Begins"),
+                             List.of("year_name_id", "year_id", "name_id")),
+                Arguments.of("page by year and name after",
+                             new Document("$and", List.of(new Document("year", 2005).append("name", "Batman Begins"),
+                                                          afterId)),
+                             List.of("year_name_id", "year_id", "name_id")));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryQueries")
+    void queryUsesAnIndex(String query, Document filter, List<String> expectedIndexes) {
+
+        // when
+        Document winningPlan = explain(filter, null);
+
+        // then
+        String plan = winningPlan.toJson();
+        assertFalse(plan.contains("COLLSCAN"), query + " scans the whole collection : " + plan);
+        assertTrue(plan.contains("IDHACK") || expectedIndexes.stream()
+                                                             .anyMatch(index -> plan.contains("\"indexName\": \"" + index + "\"")),
+                   query + " does not use any of " + expectedIndexes + " : " + plan);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("pageQueries")
+    void pageQueryWalksAnIndexInPageOrder(String query, Document filter, List<String> expectedIndexes) {
+
+        // when
+        Document winningPlan = explain(filter, new Document("_id", 1));
+
+        // then
+        String plan = winningPlan.toJson();
+        assertFalse(plan.contains("COLLSCAN"), query + " scans the whole collection : " + plan);
+        assertFalse(plan.contains("\"stage\": \"SORT\""), query + " sorts the matches in memory : " + plan);
+        assertTrue(expectedIndexes.stream()
+                                  .anyMatch(index -> plan.contains("\"indexName\": \"" + index + "\"")),
+                   query + " does not use any of " + expectedIndexes + " : " + plan);
+    }
+
+    private Document explain(Document filter, @Nullable Document sort) {
+        Document find = new Document("find", reactiveMongoTemplate.getCollectionName(MovieInfo.class))
+                .append("filter", filter);
+        if (sort != null) {
+            find.append("sort", sort)
+                .append("limit", 11);
+        }
+        Document command = new Document("explain", find)
+                .append("verbosity", "queryPlanner");
+        Document explained = Objects.requireNonNull(reactiveMongoTemplate.executeCommand(command)
+                                                                         .block());
+        return explained.get("queryPlanner", Document.class)
+                        .get("winningPlan", Document.class);
+    }
+}
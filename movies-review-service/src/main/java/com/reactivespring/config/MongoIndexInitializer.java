@@ -0,0 +1,66 @@
+package com.reactivespring.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.stream.Collectors;
+
+/**
+ * Creates the indexes declared on the {@link Document} entities ({@code @Indexed}, {@code @CompoundIndex}) once the
+ * application is ready. Creation runs in the background, so readiness never waits on Mongo; an index that already
+ * exists with the same definition is left alone. Failures are logged, the queries still work without their index.
+ */
+@Component
+@Slf4j
+public class MongoIndexInitializer {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final MongoMappingContext mongoMappingContext;
+    private final boolean ensureOnStartup;
+
+    public MongoIndexInitializer(ReactiveMongoTemplate reactiveMongoTemplate, MongoMappingContext mongoMappingContext,
+                                 @Value("${mongo.indexes.ensureOnStartup:true}") boolean ensureOnStartup) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.mongoMappingContext = mongoMappingContext;
+        this.ensureOnStartup = ensureOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (ensureOnStartup) {
+            ensureIndexes().subscribe(null, error -> log.warn("Creating the Mongo indexes failed : {}",
+                                                              error.getMessage()));
+        }
+    }
+
+    public Mono<Void> ensureIndexes() {
+        MongoPersistentEntityIndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        return Flux.fromIterable(mongoMappingContext.getPersistentEntities())
+                   .filter(entity -> entity.isAnnotationPresent(Document.class))
+                   .concatMap(entity -> Flux.fromIterable(indexResolver.resolveIndexFor(entity.getType()))
+                                            .concatMap(indexDefinition -> reactiveMongoTemplate.indexOps(entity.getType())
+                                                                                               .ensureIndex(indexDefinition))
+                                            .then(verify(entity)))
+                   .then();
+    }
+
+    private Mono<Void> verify(MongoPersistentEntity<?> entity) {
+        return reactiveMongoTemplate.indexOps(entity.getType())
+                                    .getIndexInfo()
+                                    .map(IndexInfo::getName)
+                                    .collect(Collectors.joining(", "))
+                                    .doOnNext(indexes -> log.info("Indexes on {} : {}", entity.getCollection(), indexes))
+                                    .then();
+    }
+}
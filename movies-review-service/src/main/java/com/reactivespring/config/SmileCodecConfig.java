@@ -0,0 +1,28 @@
+package com.reactivespring.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@Configuration
+public class SmileCodecConfig {
+
+    // Spring registers the Smile codecs on its own once jackson-dataformat-smile is present, but with a plain
+    // mapper; build it from the Boot builder so Smile and JSON share the same Jackson settings
+    @Bean
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        ObjectMapper smileMapper = jackson2ObjectMapperBuilder.factory(new SmileFactory())
+                                                              .build();
+        return configurer -> {
+            configurer.defaultCodecs()
+                      .jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper));
+            configurer.defaultCodecs()
+                      .jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper));
+        };
+    }
+}
@@ -1,20 +1,28 @@
 package com.reactivespring.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.util.Set;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document
+@JsonInclude(JsonInclude.Include.NON_NULL)
+// serves the movieInfoId lookups through its prefix and their keyset pages in id order
+@CompoundIndex(name = "movieInfoId_id", def = "{'movieInfoId': 1, '_id': 1}")
 public class Review {
 
+    public static final Set<String> FIELDS = Set.of("reviewId", "movieInfoId", "comment", "rating");
+
     @Id
     private String reviewId;
 
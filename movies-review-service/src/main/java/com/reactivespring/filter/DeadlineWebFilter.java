@@ -0,0 +1,57 @@
+package com.reactivespring.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Honours the remaining budget a caller sends in {@code X-Request-Timeout} (milliseconds): once it runs out the
+ * request is cancelled, which also cancels the Mongo query behind it. Requests without the header and long-lived
+ * streams are not bounded.
+ */
+@Component
+@Slf4j
+public class DeadlineWebFilter implements WebFilter {
+
+    static final String HEADER = "X-Request-Timeout";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String header = exchange.getRequest()
+                                .getHeaders()
+                                .getFirst(HEADER);
+        if (header == null || isStream(exchange)) {
+            return chain.filter(exchange);
+        }
+
+        long budgetMillis;
+        try {
+            budgetMillis = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed {} header : {}", HEADER, header);
+            return chain.filter(exchange);
+        }
+        if (budgetMillis <= 0) {
+            return Mono.error(new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Request deadline exceeded"));
+        }
+
+        return chain.filter(exchange)
+                    .timeout(Duration.ofMillis(budgetMillis),
+                             Mono.error(() -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                                                                          "Request deadline exceeded")));
+    }
+
+    private static boolean isStream(ServerWebExchange exchange) {
+        String path = exchange.getRequest()
+                              .getPath()
+                              .value();
+        return path.endsWith("/stream") || path.endsWith("/events");
+    }
+}
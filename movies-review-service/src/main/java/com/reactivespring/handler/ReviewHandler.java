@@ -4,8 +4,11 @@ import com.reactivespring.domain.Review;
 import com.reactivespring.exception.ReviewDataException;
 import com.reactivespring.exception.ReviewNotFoundException;
 import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.tracing.SignalTracer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
@@ -17,6 +20,10 @@ import reactor.core.publisher.Sinks;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -25,6 +32,8 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ReviewHandler {
 
+    static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
     Sinks.Many<Review> reviewSink = Sinks.many()
                                          .replay()
                                          .latest();
@@ -34,15 +43,44 @@ public class ReviewHandler {
 
     private ReviewReactiveRepository reviewReactiveRepository;
 
-    public ReviewHandler(ReviewReactiveRepository reviewReactiveRepository) {
+    private SignalTracer signalTracer;
+
+    private int defaultPageSize;
+
+    private int maxPageSize;
+
+    public ReviewHandler(ReviewReactiveRepository reviewReactiveRepository, SignalTracer signalTracer,
+                         @Value("${pagination.defaultLimit:100}") int defaultPageSize,
+                         @Value("${pagination.maxLimit:1000}") int maxPageSize) {
         this.reviewReactiveRepository = reviewReactiveRepository;
+        this.signalTracer = signalTracer;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
-    private static Mono<ServerResponse> buildReviewsResponse(Flux<Review> reviewsFlux) {
+    private static Mono<ServerResponse> buildReviewsResponse(ServerRequest request, Flux<Review> reviewsFlux) {
         return ServerResponse.ok()
+                             .contentType(negotiateContentType(request))
                              .body(reviewsFlux, Review.class);
     }
 
+    // functional endpoints write with the first matching codec rather than negotiating on Accept,
+    // so pick Smile explicitly when an internal caller prefers it; wildcards stay JSON
+    private static MediaType negotiateContentType(ServerRequest request) {
+        List<MediaType> acceptedMediaTypes = new ArrayList<>(request.headers()
+                                                                    .accept());
+        MediaType.sortBySpecificityAndQuality(acceptedMediaTypes);
+        for (MediaType acceptedMediaType : acceptedMediaTypes) {
+            if (APPLICATION_SMILE.equalsTypeAndSubtype(acceptedMediaType)) {
+                return APPLICATION_SMILE;
+            }
+            if (acceptedMediaType.includes(MediaType.APPLICATION_JSON)) {
+                return MediaType.APPLICATION_JSON;
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
     public Mono<ServerResponse> addReview(ServerRequest request) {
 
         return request.bodyToMono(Review.class)
@@ -71,17 +109,100 @@ public class ReviewHandler {
     public Mono<ServerResponse> getReviews(ServerRequest request) {
 
         Optional<String> movieInfoId = request.queryParam("movieInfoId");
+        Optional<Set<String>> fields = request.queryParam("fields")
+                                              .map(ReviewHandler::projection);
+        if (request.queryParam("limit")
+                   .isPresent() || request.queryParam("after")
+                                          .isPresent()) {
+            Criteria criteria = movieInfoId.map(id -> Criteria.where("movieInfoId")
+                                                              .is(Long.valueOf(id)))
+                                           .orElseGet(Criteria::new);
+            return getReviewPage(request, criteria, fields.orElse(Set.of()));
+        }
         if (movieInfoId.isPresent()) {
-            Flux<Review> reviewsByMovieInfoId = reviewReactiveRepository.findReviewsByMovieInfoId(Long.valueOf(
-                    movieInfoId.get()));
-            return buildReviewsResponse(reviewsByMovieInfoId);
+            Long id = Long.valueOf(movieInfoId.get());
+            Criteria byMovieInfoId = Criteria.where("movieInfoId")
+                                             .is(id);
+            Flux<Review> reviewsByMovieInfoId = fields.map(projection -> reviewReactiveRepository.findAllProjected(byMovieInfoId,
+                                                                                                                   projection))
+                                                      .orElseGet(() -> reviewReactiveRepository.findReviewsByMovieInfoId(id))
+                                                      .transform(signalTracer.flux("getReviewsByMovieInfoId"));
+            return buildReviewsResponse(request, reviewsByMovieInfoId);
         } else {
-            Flux<Review> reviewFlux = reviewReactiveRepository.findAll();
-            return buildReviewsResponse(reviewFlux);
+            Flux<Review> reviewFlux = fields.map(projection -> reviewReactiveRepository.findAllProjected(new Criteria(),
+                                                                                                         projection))
+                                            .orElseGet(reviewReactiveRepository::findAll)
+                                            .transform(signalTracer.flux("getReviews"));
+            return buildReviewsResponse(request, reviewFlux);
         }
 
     }
 
+    // reads one review past the page to know whether a next page exists, so the last page carries no token
+    private Mono<ServerResponse> getReviewPage(ServerRequest request, Criteria criteria, Set<String> fields) {
+
+        int pageSize = request.queryParam("limit")
+                              .map(this::pageSize)
+                              .orElse(defaultPageSize);
+        String afterId = request.queryParam("after")
+                                .map(PageToken::decode)
+                                .orElse(null);
+
+        return reviewReactiveRepository.findPage(criteria, fields, afterId, pageSize + 1)
+                                       .transform(signalTracer.flux("getReviewPage"))
+                                       .collectList()
+                                       .flatMap(reviews -> {
+                                           ServerResponse.BodyBuilder builder = ServerResponse.ok()
+                                                                                              .contentType(negotiateContentType(request));
+                                           if (reviews.size() <= pageSize) {
+                                               return builder.bodyValue(reviews);
+                                           }
+                                           List<Review> page = reviews.subList(0, pageSize);
+                                           return builder.header(PageToken.NEXT_PAGE_HEADER,
+                                                                 PageToken.encode(page.get(pageSize - 1)
+                                                                                      .getReviewId()))
+                                                         .bodyValue(page);
+                                       });
+    }
+
+    private int pageSize(String limit) {
+        try {
+            int pageSize = Integer.parseInt(limit);
+            if (pageSize >= 1 && pageSize <= maxPageSize) {
+                return pageSize;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new ReviewDataException("limit must be between 1 and " + maxPageSize + " : " + limit);
+    }
+
+    // an unknown field would silently project to nothing, so it is rejected instead
+    static Set<String> projection(String fields) {
+        Set<String> projection = Arrays.stream(fields.split(","))
+                                       .map(String::trim)
+                                       .filter(field -> !field.isEmpty())
+                                       .collect(Collectors.toCollection(LinkedHashSet::new));
+        List<String> unknownFields = projection.stream()
+                                               .filter(field -> !Review.FIELDS.contains(field))
+                                               .collect(Collectors.toList());
+        if (!unknownFields.isEmpty()) {
+            throw new ReviewDataException("Unknown review fields : " + unknownFields);
+        }
+        return projection;
+    }
+
+    public Mono<ServerResponse> getReviewsByMovieInfoIds(ServerRequest request) {
+
+        return request.bodyToFlux(Long.class)
+                      .collectList()
+                      .flatMapMany(reviewReactiveRepository::findReviewsByMovieInfoIdIn)
+                      .transform(signalTracer.flux("getReviewsByMovieInfoIds"))
+                      .collectMultimap(Review::getMovieInfoId)
+                      .flatMap(ServerResponse.ok()
+                                             .contentType(negotiateContentType(request))::bodyValue);
+    }
+
     public Mono<ServerResponse> updateReview(ServerRequest request) {
 
         String reviewId = request.pathVariable("id");
@@ -97,6 +218,7 @@ public class ReviewHandler {
                                                            return review;
                                                        })
                                                        .flatMap(reviewReactiveRepository::save)
+                                                       .doOnNext(reviewSink::tryEmitNext)
                                                        .flatMap(savedReview -> ServerResponse.ok()
                                                                                              .bodyValue(savedReview)));
     }
@@ -106,7 +228,10 @@ public class ReviewHandler {
         String reviewId = request.pathVariable("id");
         Mono<Review> existingReview = reviewReactiveRepository.findById(reviewId);
 
-        return existingReview.flatMap(review -> reviewReactiveRepository.deleteById(reviewId))
+        // followers of the stream only learn which movie's reviews changed, so a deleted review goes out as it was
+        return existingReview.flatMap(review -> reviewReactiveRepository.deleteById(reviewId)
+                                                                        .thenReturn(review))
+                             .doOnNext(reviewSink::tryEmitNext)
                              .then(ServerResponse.noContent()
                                                  .build());
 
@@ -116,7 +241,7 @@ public class ReviewHandler {
 
         return ServerResponse.ok()
                              .contentType(MediaType.APPLICATION_NDJSON)
-                             .body(reviewSink.asFlux(), Review.class)
-                             .log();
+                             .body(reviewSink.asFlux()
+                                             .transform(signalTracer.flux("reviewStream")), Review.class);
     }
 }
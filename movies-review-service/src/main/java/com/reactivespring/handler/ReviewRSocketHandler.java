@@ -0,0 +1,68 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.ReviewDataException;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.tracing.SignalTracer;
+import io.rsocket.exceptions.InvalidException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RSocket routes next to the functional HTTP endpoints of {@link ReviewHandler}, with the same contracts.
+ */
+@Controller
+public class ReviewRSocketHandler {
+
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    private ReviewHandler reviewHandler;
+
+    private SignalTracer signalTracer;
+
+    public ReviewRSocketHandler(ReviewReactiveRepository reviewReactiveRepository, ReviewHandler reviewHandler,
+                                SignalTracer signalTracer) {
+        this.reviewReactiveRepository = reviewReactiveRepository;
+        this.reviewHandler = reviewHandler;
+        this.signalTracer = signalTracer;
+    }
+
+    @MessageMapping("reviews.{movieInfoId}")
+    public Flux<Review> getReviewsByMovieInfoId(@DestinationVariable Long movieInfoId,
+                                                @Payload(required = false) String fields) {
+        Flux<Review> reviewFlux = fields != null
+                ? reviewReactiveRepository.findAllProjected(Criteria.where("movieInfoId")
+                                                                    .is(movieInfoId), ReviewHandler.projection(fields))
+                : reviewReactiveRepository.findReviewsByMovieInfoId(movieInfoId);
+        return reviewFlux.transform(signalTracer.flux("getReviewsByMovieInfoId"));
+    }
+
+    @MessageMapping("reviews.bulk")
+    public Mono<Map<String, Collection<Review>>> getReviewsByMovieInfoIds(List<Long> movieInfoIds) {
+        return reviewReactiveRepository.findReviewsByMovieInfoIdIn(movieInfoIds)
+                                       .transform(signalTracer.flux("getReviewsByMovieInfoIds"))
+                                       .collectMultimap(review -> String.valueOf(review.getMovieInfoId()));
+    }
+
+    @MessageMapping("reviews.stream")
+    public Flux<Review> getReviewStream() {
+        return reviewHandler.reviewSink.asFlux()
+                                       .transform(signalTracer.flux("reviewStream"));
+    }
+
+    // a bad request goes out as an INVALID error, so the requester can tell it apart from a failure worth retrying
+    @MessageExceptionHandler({ReviewDataException.class, IllegalArgumentException.class})
+    public Mono<Void> handleRouteException(RuntimeException exception) {
+        return Mono.error(new InvalidException(exception.getMessage()));
+    }
+}
@@ -0,0 +1,22 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import org.springframework.data.mongodb.core.query.Criteria;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+public interface ReviewProjectionRepository {
+
+    /**
+     * Finds the reviews matching {@code criteria}, reading only {@code fields} (and the id) from Mongo.
+     */
+    Flux<Review> findAllProjected(Criteria criteria, Collection<String> fields);
+
+    /**
+     * Finds up to {@code limit} reviews matching {@code criteria} in id order, starting after {@code afterId} (or from
+     * the first one when null). Seeks on an index ending in the id instead of skipping, so a late page costs what the
+     * first one does. An empty {@code fields} reads whole documents.
+     */
+    Flux<Review> findPage(Criteria criteria, Collection<String> fields, String afterId, int limit);
+}
@@ -0,0 +1,52 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+public class ReviewProjectionRepositoryImpl implements ReviewProjectionRepository {
+
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ReviewProjectionRepositoryImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Flux<Review> findAllProjected(Criteria criteria, Collection<String> fields) {
+        Query query = new Query(criteria);
+        fields.forEach(field -> query.fields()
+                                     .include(field));
+        return reactiveMongoTemplate.find(query, Review.class);
+    }
+
+    @Override
+    public Flux<Review> findPage(Criteria criteria, Collection<String> fields, String afterId, int limit) {
+        Query query = new Query(afterId != null ? new Criteria().andOperator(criteria, idsAfter(afterId)) : criteria)
+                .with(Sort.by("reviewId"))
+                .limit(limit);
+        fields.forEach(field -> query.fields()
+                                     .include(field));
+        return reactiveMongoTemplate.find(query, Review.class);
+    }
+
+    // generated ids are ObjectIds, client supplied ones stay strings; strings sort before ObjectIds and $gt never
+    // crosses BSON types, so a page ending on a string id has to carry on into the ObjectIds explicitly
+    private static Criteria idsAfter(String afterId) {
+        if (ObjectId.isValid(afterId)) {
+            return Criteria.where("reviewId")
+                           .gt(new ObjectId(afterId));
+        }
+        return new Criteria().orOperator(Criteria.where("reviewId")
+                                                 .gt(afterId),
+                                         Criteria.where("reviewId")
+                                                 .type(JsonSchemaObject.Type.objectIdType()));
+    }
+}
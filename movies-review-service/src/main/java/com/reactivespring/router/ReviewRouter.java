@@ -1,6 +1,7 @@
 package com.reactivespring.router;
 
 import com.reactivespring.handler.ReviewHandler;
+import com.reactivespring.tracing.SignalTracer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.server.RouterFunction;
@@ -13,11 +14,12 @@ import static org.springframework.web.reactive.function.server.RouterFunctions.r
 public class ReviewRouter {
 
     @Bean
-    public RouterFunction<ServerResponse> reviewsRoute(ReviewHandler reviewHandler) {
+    public RouterFunction<ServerResponse> reviewsRoute(ReviewHandler reviewHandler, SignalTracer signalTracer) {
 
         return route().nest(path("/v1/reviews"), builder -> {
                           builder.POST("", request -> reviewHandler.addReview(request))
                                  .GET("", request -> reviewHandler.getReviews(request))
+                                 .POST("/bulk", request -> reviewHandler.getReviewsByMovieInfoIds(request))
                                  .PUT("/{id}", request -> reviewHandler.updateReview(request))
                                  .DELETE("/{id}", request -> reviewHandler.deleteReview(request))
                                  .GET("/stream", request -> reviewHandler.getReviewStream(request));
@@ -25,6 +27,10 @@ public class ReviewRouter {
                       .GET("/v1/hello-world",
                            (request -> ServerResponse.ok()
                                                      .bodyValue("hello-world")))
+                      .GET("/v1/traces",
+                           (request -> ServerResponse.ok()
+                                                     .bodyValue(signalTracer.dump(request.queryParam("traceId")
+                                                                                         .orElse(null)))))
 /*                .POST("/v1/reviews", request -> reviewHandler.addReview(request))
                 .GET("/v1/reviews", request -> reviewHandler.getReviews(request))*/.build();
     }
@@ -8,15 +8,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
@@ -24,6 +32,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 public class ReviewsIntgTest {
 
     static String REVIEWS_URI = "/v1/reviews";
+    static String NEXT_PAGE_HEADER = "X-Next-Page-Token";
 
     @Autowired
     WebTestClient webTestClient;
@@ -86,6 +95,42 @@ public class ReviewsIntgTest {
 
     }
 
+    @Test
+    void getReviews_smile() {
+
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+
+        // when
+        webTestClient
+                .get()
+                .uri(REVIEWS_URI)
+                .accept(smile, MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .contentTypeCompatibleWith(smile)
+                .expectBodyList(Review.class)
+                .hasSize(3);
+
+    }
+
+    @Test
+    void getReviews_wildcardAcceptStaysJson() {
+
+        // when
+        webTestClient
+                .get()
+                .uri(REVIEWS_URI)
+                .accept(MediaType.ALL)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+
+    }
+
     @Test
     void updateReview() {
         //given
@@ -116,6 +161,43 @@ public class ReviewsIntgTest {
 
     }
 
+    @Test
+    void updateReview_publishedOnStream() {
+        //given
+        Review savedReview = reviewReactiveRepository
+                .save(new Review(null, 1L, "Awesome Movie", 9.0))
+                .block();
+        assert savedReview != null;
+
+        //when
+        webTestClient
+                .put()
+                .uri(REVIEWS_URI + "/{id}", savedReview.getReviewId())
+                .bodyValue(new Review(null, 1L, "Not an  Awesome Movie", 8.0))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful();
+
+        //then
+        Flux<Review> reviewStream = webTestClient
+                .get()
+                .uri(REVIEWS_URI + "/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(Review.class)
+                .getResponseBody();
+
+        StepVerifier.create(reviewStream)
+                    .assertNext(review -> {
+                        assertEquals(savedReview.getReviewId(), review.getReviewId());
+                        assertEquals("Not an  Awesome Movie", review.getComment());
+                    })
+                    .thenCancel()
+                    .verify();
+    }
+
     @Test
     public void deleteReview() {
 
@@ -135,6 +217,42 @@ public class ReviewsIntgTest {
                 .isNoContent();
     }
 
+    @Test
+    void deleteReview_publishedOnStream() {
+        //given
+        Review savedReview = reviewReactiveRepository
+                .save(new Review(null, 1L, "Awesome Movie", 9.0))
+                .block();
+        assert savedReview != null;
+
+        //when
+        webTestClient
+                .delete()
+                .uri(REVIEWS_URI + "/{id}", savedReview.getReviewId())
+                .exchange()
+                .expectStatus()
+                .isNoContent();
+
+        //then
+        Flux<Review> reviewStream = webTestClient
+                .get()
+                .uri(REVIEWS_URI + "/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(Review.class)
+                .getResponseBody();
+
+        StepVerifier.create(reviewStream)
+                    .assertNext(review -> {
+                        assertEquals(savedReview.getReviewId(), review.getReviewId());
+                        assertEquals(1L, review.getMovieInfoId());
+                    })
+                    .thenCancel()
+                    .verify();
+    }
+
     @Test
     void getReviewsByMovieInfoId() {
 
@@ -158,5 +276,121 @@ public class ReviewsIntgTest {
                 });
     }
 
+    @Test
+    void getReviewsByMovieInfoId_fields() {
+
+        URI uri = UriComponentsBuilder
+                .fromUriString(REVIEWS_URI)
+                .queryParam("movieInfoId", "1")
+                .queryParam("fields", "rating")
+                .buildAndExpand()
+                .toUri();
+
+        //when
+        webTestClient
+                .get()
+                .uri(uri)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.length()")
+                .isEqualTo(2)
+                .jsonPath("$[0].rating")
+                .isEqualTo(9.0)
+                .jsonPath("$[0].reviewId")
+                .exists()
+                .jsonPath("$[0].comment")
+                .doesNotExist()
+                .jsonPath("$[0].movieInfoId")
+                .doesNotExist();
+    }
+
+    @Test
+    void getReviewsByMovieInfoId_paged() {
+
+        //when
+        EntityExchangeResult<List<Review>> firstPage = webTestClient
+                .get()
+                .uri(REVIEWS_URI + "?movieInfoId=1&limit=1")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(Review.class)
+                .hasSize(1)
+                .returnResult();
+        String nextPageToken = firstPage
+                .getResponseHeaders()
+                .getFirst(NEXT_PAGE_HEADER);
+        assertNotNull(nextPageToken);
+        EntityExchangeResult<List<Review>> lastPage = webTestClient
+                .get()
+                .uri(REVIEWS_URI + "?movieInfoId=1&limit=1&after=" + nextPageToken)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(Review.class)
+                .hasSize(1)
+                .returnResult();
+
+        //then
+        assertNull(lastPage
+                .getResponseHeaders()
+                .getFirst(NEXT_PAGE_HEADER));
+        Review firstReview = firstPage
+                .getResponseBody()
+                .get(0);
+        Review lastReview = lastPage
+                .getResponseBody()
+                .get(0);
+        assertNotEquals(firstReview.getReviewId(), lastReview.getReviewId());
+        assertEquals(1L, lastReview.getMovieInfoId());
+    }
+
+    @Test
+    void getReviews_invalidLimit() {
+
+        //when
+        webTestClient
+                .get()
+                .uri(REVIEWS_URI + "?limit=0")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void getReviews_unknownField() {
+
+        //when
+        webTestClient
+                .get()
+                .uri(REVIEWS_URI + "?fields=rating,author")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void getReviewsByMovieInfoIds() {
+
+        //when
+        webTestClient
+                .post()
+                .uri(REVIEWS_URI + "/bulk")
+                .bodyValue(List.of(1L, 2L, 3L))
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(new ParameterizedTypeReference<Map<String, List<Review>>>() {
+                })
+                .value(reviewsByMovieInfoId -> {
+                    System.out.println("reviewsByMovieInfoId : " + reviewsByMovieInfoId);
+                    assertEquals(2, reviewsByMovieInfoId.size());
+                    assertEquals(2, reviewsByMovieInfoId.get("1").size());
+                    assertEquals(1, reviewsByMovieInfoId.get("2").size());
+                });
+    }
+
 
 }
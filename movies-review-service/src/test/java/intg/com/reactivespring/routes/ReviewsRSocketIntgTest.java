@@ -0,0 +1,114 @@
+package com.reactivespring.routes;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import io.rsocket.exceptions.InvalidException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.rsocket.context.LocalRSocketServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.rsocket.server.port: 0")
+public class ReviewsRSocketIntgTest {
+
+    @Autowired
+    ReviewReactiveRepository reviewReactiveRepository;
+
+    @Autowired
+    RSocketRequester.Builder requesterBuilder;
+
+    @LocalRSocketServerPort
+    int port;
+
+    RSocketRequester requester;
+
+    @BeforeEach
+    void setUp() {
+        List<Review> reviewsList = List.of(new Review(null, 1L, "Awesome Movie", 9.0),
+                                           new Review(null, 1L, "Awesome Movie1", 9.0),
+                                           new Review(null, 2L, "Excellent Movie", 8.0));
+
+        reviewReactiveRepository
+                .saveAll(reviewsList)
+                .blockLast();
+        requester = requesterBuilder.tcp("localhost", port);
+    }
+
+    @AfterEach
+    void tearDown() {
+        requester.dispose();
+        reviewReactiveRepository
+                .deleteAll()
+                .block();
+    }
+
+    @Test
+    void getReviewsByMovieInfoId() {
+
+        //when
+        StepVerifier.create(requester.route("reviews.{movieInfoId}", "1")
+                                     .retrieveFlux(Review.class))
+                    //then
+                    .expectNextCount(2)
+                    .verifyComplete();
+    }
+
+    @Test
+    void getReviewsByMovieInfoId_fields() {
+
+        //when
+        StepVerifier.create(requester.route("reviews.{movieInfoId}", "2")
+                                     .data("rating")
+                                     .retrieveFlux(Review.class))
+                    //then
+                    .assertNext(review -> {
+                        assertEquals(8.0, review.getRating());
+                        assertNull(review.getComment());
+                    })
+                    .verifyComplete();
+    }
+
+    @Test
+    void getReviewsByMovieInfoId_unknownField() {
+
+        //when
+        StepVerifier.create(requester.route("reviews.{movieInfoId}", "2")
+                                     .data("author")
+                                     .retrieveFlux(Review.class))
+                    //then
+                    .expectError(InvalidException.class)
+                    .verify();
+    }
+
+    @Test
+    void getReviewsByMovieInfoIds() {
+
+        //when
+        StepVerifier.create(requester.route("reviews.bulk")
+                                     .data(List.of("1", "2", "3"))
+                                     .retrieveMono(new ParameterizedTypeReference<Map<String, List<Review>>>() {
+                                     }))
+                    //then
+                    .assertNext(reviewsByMovieInfoId -> {
+                        assertEquals(2, reviewsByMovieInfoId.size());
+                        assertEquals(2, reviewsByMovieInfoId.get("1")
+                                                            .size());
+                    })
+                    .verifyComplete();
+    }
+}
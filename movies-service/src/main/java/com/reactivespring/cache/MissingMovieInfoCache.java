@@ -0,0 +1,55 @@
+package com.reactivespring.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Short-lived record of movie ids movies-info-service answered with 404, so repeated lookups of ids that do
+ * not exist fail locally. Entries are dropped when the id shows up on the movie info stream.
+ */
+@Component
+@Slf4j
+public class MissingMovieInfoCache {
+
+    private final boolean enabled;
+    private final Cache<String, Boolean> cache;
+
+    public MissingMovieInfoCache(@Value("${restClient.missingMovieInfoCache.enabled:true}") boolean enabled,
+                                 @Value("${restClient.missingMovieInfoCache.maximumSize:10000}") long maximumSize,
+                                 @Value("${restClient.missingMovieInfoCache.ttl:30s}") Duration ttl,
+                                 MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maximumSize)
+                             .expireAfterWrite(ttl)
+                             .recordStats()
+                             .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "missingMovieInfoCache");
+        log.info("Missing MovieInfo cache enabled : {}, maximumSize : {}, ttl : {}", enabled, maximumSize, ttl);
+    }
+
+    public boolean isMissing(String movieId) {
+        return enabled && cache.getIfPresent(movieId) != null;
+    }
+
+    public void markMissing(String movieId) {
+        if (enabled) {
+            cache.put(movieId, Boolean.TRUE);
+        }
+    }
+
+    public void invalidate(String movieId) {
+        cache.invalidate(movieId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
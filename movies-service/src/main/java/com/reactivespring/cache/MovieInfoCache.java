@@ -0,0 +1,87 @@
+package com.reactivespring.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactivespring.domain.MovieInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of {@link MovieInfo} by id. Concurrent misses for the same id share the
+ * in-flight load, empty results and errors are not cached.
+ */
+@Component
+@Slf4j
+public class MovieInfoCache {
+
+    private final boolean enabled;
+    private final AsyncCache<String, MovieInfo> cache;
+
+    public MovieInfoCache(@Value("${restClient.movieInfoCache.enabled:true}") boolean enabled,
+                          @Value("${restClient.movieInfoCache.maximumSize:10000}") long maximumSize,
+                          @Value("${restClient.movieInfoCache.ttl:10m}") Duration ttl,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maximumSize)
+                             .expireAfterWrite(ttl)
+                             .recordStats()
+                             .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "movieInfoCache");
+        log.info("MovieInfo cache enabled : {}, maximumSize : {}, ttl : {}", enabled, maximumSize, ttl);
+    }
+
+    public Mono<MovieInfo> get(String movieId, Function<String, Mono<MovieInfo>> loader) {
+        if (!enabled) {
+            return loader.apply(movieId);
+        }
+        // the load runs outside this subscription, so hand it the caller's context (deadline) explicitly
+        return Mono.deferContextual(context -> Mono.fromFuture(cache.get(movieId, (id, executor) -> loader.apply(id)
+                                                                                                         .contextWrite(context)
+                                                                                                         .toFuture())));
+    }
+
+    /**
+     * The cached entry, if one has finished loading, without triggering a load.
+     */
+    public Optional<MovieInfo> getIfPresent(String movieId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(movieId))
+                       .filter(future -> future.isDone() && !future.isCompletedExceptionally())
+                       .map(CompletableFuture::join);
+    }
+
+    public void put(MovieInfo movieInfo) {
+        if (enabled) {
+            cache.put(movieInfo.getMovieInfoId(), CompletableFuture.completedFuture(movieInfo));
+        }
+    }
+
+    public List<String> cachedIds() {
+        return List.copyOf(cache.synchronous()
+                                .asMap()
+                                .keySet());
+    }
+
+    public void invalidate(String movieId) {
+        cache.synchronous()
+             .invalidate(movieId);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous()
+             .invalidateAll();
+    }
+}
@@ -0,0 +1,162 @@
+package com.reactivespring.cache;
+
+import com.reactivespring.client.MoviesInfoClient;
+import com.reactivespring.client.SharedMovieInfoStream;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Follows the movie info stream for the lifetime of the application and keeps the local caches in step with it:
+ * added and updated movie infos are put into {@link MovieInfoCache}, deleted ones are evicted, and
+ * {@link MissingMovieInfoCache} forgets any id that shows up. When the event ids show a gap (dropped events, an
+ * upstream restart or a reconnect past the replay window) every cached id is reloaded through the bulk endpoint.
+ * Reconnects with backoff when the stream fails.
+ * <p>
+ * The warmer opens its own upstream connection instead of subscribing to {@link SharedMovieInfoStream}: a subscriber
+ * that never leaves would keep the shared connection open for good and make its grace period meaningless, and the
+ * per-subscriber drop buffer there would turn every burst into a gap and a full reload. The events are consumed with
+ * backpressure instead.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "restClient.movieInfoStream.cacheWarming", havingValue = "true", matchIfMissing = true)
+public class MovieInfoCacheWarmer {
+
+    private final MoviesInfoClient moviesInfoClient;
+    private final MovieInfoCache movieInfoCache;
+    private final MissingMovieInfoCache missingMovieInfoCache;
+    private final Duration maxReconnectBackoff;
+    private final int reloadBatchSize;
+
+    private final AtomicLong lastEventId = new AtomicLong(-1);
+    private final AtomicLong lastEpoch = new AtomicLong(-1);
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter reloads;
+
+    private Disposable subscription;
+
+    public MovieInfoCacheWarmer(MoviesInfoClient moviesInfoClient,
+                                MovieInfoCache movieInfoCache,
+                                MissingMovieInfoCache missingMovieInfoCache,
+                                @Value("${restClient.movieInfoStream.maxReconnectBackoff:30s}") Duration maxReconnectBackoff,
+                                @Value("${restClient.movieInfoStream.reloadBatchSize:500}") int reloadBatchSize,
+                                MeterRegistry meterRegistry) {
+        this.moviesInfoClient = moviesInfoClient;
+        this.movieInfoCache = movieInfoCache;
+        this.missingMovieInfoCache = missingMovieInfoCache;
+        this.maxReconnectBackoff = maxReconnectBackoff;
+        this.reloadBatchSize = reloadBatchSize;
+
+        this.reloads = Counter.builder("movieinfo.cache.warmer.reloads")
+                              .description("Bulk reloads of the cached movie infos after a gap in the stream")
+                              .register(meterRegistry);
+        TimeGauge.builder("movieinfo.cache.warmer.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                 .description("Time between publishing the last applied event upstream and applying it locally")
+                 .register(meterRegistry);
+        Gauge.builder("movieinfo.cache.warmer.last.event.id", lastEventId, AtomicLong::get)
+             .description("Id of the last movie info event applied to the cache")
+             .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscription = Flux.defer(moviesInfoClient::fetchMovieInfoEvents)
+                           .concatMap(this::apply)
+                           // an upstream that simply completes is followed again like one that failed
+                           .concatWith(Mono.error(() -> new IllegalStateException("Movie info stream completed")))
+                           .doOnError(error -> log.warn("Movie info stream failed, reconnecting : {}",
+                                                        error.getMessage()))
+                           .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                                           .maxBackoff(maxReconnectBackoff))
+                           .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private Mono<Void> apply(MovieInfoEvent event) {
+        long previousEventId = lastEventId.getAndSet(event.getEventId());
+        long previousEpoch = lastEpoch.getAndSet(event.getEpoch());
+        // the same id again is the latest event replayed on reconnect, a new epoch means upstream restarted
+        boolean gap = previousEventId >= 0
+                && (event.getEpoch() != previousEpoch || event.getEventId() > previousEventId + 1
+                || event.getEventId() < previousEventId);
+        if (gap) {
+            log.warn("Movie info stream jumped from event {} to {}, reloading the cache", previousEventId,
+                     event.getEventId());
+        }
+        return (gap ? reload() : Mono.<Void>empty()).then(Mono.fromRunnable(() -> {
+            MovieInfo movieInfo = event.getMovieInfo();
+            if (event.getType() == MovieInfoEvent.Type.DELETED) {
+                movieInfoCache.invalidate(movieInfo.getMovieInfoId());
+            } else {
+                movieInfoCache.put(movieInfo);
+                missingMovieInfoCache.invalidate(movieInfo.getMovieInfoId());
+            }
+            if (event.getPublishedAt() != null) {
+                lagMillis.set(Duration.between(event.getPublishedAt(), Instant.now())
+                                      .toMillis());
+            }
+        }));
+    }
+
+    private Mono<Void> reload() {
+        reloads.increment();
+        missingMovieInfoCache.invalidateAll();
+        return Flux.fromIterable(movieInfoCache.cachedIds())
+                   .buffer(reloadBatchSize)
+                   .concatMap(this::reload)
+                   .then();
+    }
+
+    private Mono<Void> reload(List<String> movieIds) {
+        return moviesInfoClient.fetchMovieInfos(movieIds)
+                               .collectMap(MovieInfo::getMovieInfoId, Function.identity())
+                               .doOnNext(movieInfoById -> refresh(movieIds, movieInfoById))
+                               .onErrorResume(error -> {
+                                   // better to miss than to serve entries that may have changed meanwhile
+                                   log.warn("Reloading movie infos failed, evicting them : {}", error.getMessage());
+                                   movieIds.forEach(movieInfoCache::invalidate);
+                                   return Mono.empty();
+                               })
+                               .then();
+    }
+
+    private void refresh(List<String> movieIds, Map<String, MovieInfo> movieInfoById) {
+        movieIds.forEach(movieId -> {
+            MovieInfo movieInfo = movieInfoById.get(movieId);
+            if (movieInfo != null) {
+                movieInfoCache.put(movieInfo);
+            } else {
+                movieInfoCache.invalidate(movieId);
+            }
+        });
+    }
+}
@@ -0,0 +1,166 @@
+package com.reactivespring.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactivespring.domain.Movie;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Encoded JSON of complete {@code /v1/movies/{id}} responses by movie id, so a hit is written out without
+ * aggregating or encoding again. The bytes are copied into direct buffers outside the heap, which keeps a large
+ * cache out of the way of the garbage collector; {@code maximumSize} bounds the total number of cached bytes.
+ * Every response carries a hash of its bytes as its ETag.
+ */
+@Component
+@Slf4j
+public class MovieResponseCache {
+
+    private final boolean enabled;
+    private final Cache<String, EncodedMovie> cache;
+    private final ObjectMapper objectMapper;
+
+    private static final int VERSION_STRIPES = 1024;
+
+    // bumped by invalidations, a load that overlapped one of its movie is served but not cached. Movie ids share
+    // striped versions to keep them bounded, a collision only costs a missed put
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong invalidateAllVersion = new AtomicLong();
+
+    public MovieResponseCache(@Value("${movies.responseCache.enabled:true}") boolean enabled,
+                              @Value("${movies.responseCache.maximumSize:256MB}") DataSize maximumSize,
+                              @Value("${movies.responseCache.ttl:10m}") Duration ttl,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                             .maximumWeight(maximumSize.toBytes())
+                             .weigher((String movieId, EncodedMovie encodedMovie) -> encodedMovie.size())
+                             .expireAfterWrite(ttl)
+                             .recordStats()
+                             .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "movieResponseCache");
+        Gauge.builder("movies.response.cache.bytes", cache, MovieResponseCache::weightedSize)
+             .description("Off-heap bytes held by the movie response cache")
+             .baseUnit("bytes")
+             .register(meterRegistry);
+        log.info("Movie response cache enabled : {}, maximumSize : {}, ttl : {}", enabled, maximumSize, ttl);
+    }
+
+    /**
+     * The cached response of {@code movieId}, otherwise {@code loader} encoded and cached. Empty results, errors and
+     * movies with incomplete reviews are not cached.
+     */
+    public Mono<EncodedMovie> get(String movieId, Mono<Movie> loader) {
+        if (!enabled) {
+            return loader.map(this::encode);
+        }
+        return Mono.defer(() -> {
+            EncodedMovie cached = cache.getIfPresent(movieId);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long version = version(movieId);
+            return loader.map(movie -> {
+                EncodedMovie encodedMovie = encode(movie);
+                if (version(movieId) == version && !Boolean.TRUE.equals(movie.getReviewsIncomplete())) {
+                    EncodedMovie offHeap = encodedMovie.offHeap();
+                    // checked again under the entry lock, an invalidation that gets past it removes the entry after
+                    cache.asMap()
+                         .compute(movieId, (id, current) -> version(id) == version ? offHeap : current);
+                }
+                return encodedMovie;
+            });
+        });
+    }
+
+    public EncodedMovie encode(Movie movie) {
+        try {
+            return new EncodedMovie(objectMapper.writeValueAsBytes(movie));
+        } catch (JsonProcessingException ex) {
+            throw new EncodingException("JSON encoding error: " + ex.getOriginalMessage(), ex);
+        }
+    }
+
+    public void invalidate(String movieId) {
+        versions.incrementAndGet(stripe(movieId));
+        cache.invalidate(movieId);
+    }
+
+    public void invalidateAll() {
+        invalidateAllVersion.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    // both parts only grow, so the sum is unchanged only while neither is
+    private long version(String movieId) {
+        return invalidateAllVersion.get() + versions.get(stripe(movieId));
+    }
+
+    private static int stripe(String movieId) {
+        int hash = movieId.hashCode();
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    private static double weightedSize(Cache<String, EncodedMovie> cache) {
+        return cache.policy()
+                    .eviction()
+                    .map(eviction -> eviction.weightedSize()
+                                             .orElse(0L))
+                    .orElse(0L);
+    }
+
+    /**
+     * Encoded response bytes and their ETag. The buffer is read-only and shared, {@link #getBody()} hands out an
+     * independent view of it on every call.
+     */
+    public static final class EncodedMovie {
+
+        private final ByteBuffer body;
+        private final String etag;
+
+        EncodedMovie(byte[] body) {
+            this(ByteBuffer.wrap(body), "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        }
+
+        private EncodedMovie(ByteBuffer body, String etag) {
+            this.body = body.asReadOnlyBuffer();
+            this.etag = etag;
+        }
+
+        public ByteBuffer getBody() {
+            return body.duplicate();
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        int size() {
+            return body.remaining();
+        }
+
+        EncodedMovie offHeap() {
+            ByteBuffer direct = ByteBuffer.allocateDirect(size());
+            direct.put(getBody())
+                  .flip();
+            return new EncodedMovie(direct, etag);
+        }
+    }
+}
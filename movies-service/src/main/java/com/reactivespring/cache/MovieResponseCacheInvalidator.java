@@ -0,0 +1,97 @@
+package com.reactivespring.cache;
+
+import com.reactivespring.client.MoviesInfoClient;
+import com.reactivespring.client.ReviewsClient;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.domain.Review;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Drops the cached response of a movie from {@link MovieResponseCache} whenever the movie info stream or the review
+ * stream reports a change to it. The movie info stream is a connection of its own, like the cache warmer's, so it
+ * is backpressured rather than dropping events behind slow /v1/movies/stream clients and leaves the shared
+ * connection free to close. Each stream reconnects with backoff on its own; everything is dropped when changes may
+ * have been missed, that is on a new subscription and on a gap in the movie info event ids.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = {"movies.responseCache.enabled", "movies.responseCache.streamInvalidation"},
+                       havingValue = "true", matchIfMissing = true)
+public class MovieResponseCacheInvalidator {
+
+    private final MoviesInfoClient moviesInfoClient;
+    private final ReviewsClient reviewsClient;
+    private final MovieResponseCache movieResponseCache;
+    private final Duration maxReconnectBackoff;
+
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    public MovieResponseCacheInvalidator(MoviesInfoClient moviesInfoClient,
+                                         ReviewsClient reviewsClient,
+                                         MovieResponseCache movieResponseCache,
+                                         @Value("${restClient.movieInfoStream.maxReconnectBackoff:30s}") Duration maxReconnectBackoff) {
+        this.moviesInfoClient = moviesInfoClient;
+        this.reviewsClient = reviewsClient;
+        this.movieResponseCache = movieResponseCache;
+        this.maxReconnectBackoff = maxReconnectBackoff;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscriptions.add(follow("movie info", movieInfoChanges()));
+        subscriptions.add(follow("review", reviewsClient.fetchReviewStream()
+                                                        .map(Review::getMovieInfoId)
+                                                        .map(String::valueOf)));
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+
+    // reconnects of the client resume after the last event, but events past the replay window or from before an
+    // upstream restart are gone
+    private Flux<String> movieInfoChanges() {
+        return Flux.defer(() -> {
+            AtomicReference<MovieInfoEvent> lastEvent = new AtomicReference<>();
+            return moviesInfoClient.fetchMovieInfoEvents()
+                                   .doOnNext(event -> {
+                                       MovieInfoEvent previous = lastEvent.getAndSet(event);
+                                       if (previous != null && (event.getEpoch() != previous.getEpoch()
+                                               || event.getEventId() > previous.getEventId() + 1)) {
+                                           movieResponseCache.invalidateAll();
+                                       }
+                                   })
+                                   .map(MovieInfoEvent::getMovieInfo)
+                                   .map(MovieInfo::getMovieInfoId);
+        });
+    }
+
+    private Disposable follow(String stream, Flux<String> changedMovieIds) {
+        return Flux.defer(() -> {
+                       movieResponseCache.invalidateAll();
+                       return changedMovieIds;
+                   })
+                   .doOnNext(movieResponseCache::invalidate)
+                   // a stream that simply completes is followed again like one that failed
+                   .concatWith(Flux.error(() -> new IllegalStateException("The " + stream + " stream completed")))
+                   .doOnError(error -> log.warn("The {} stream failed, reconnecting : {}", stream, error.getMessage()))
+                   .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                                   .maxBackoff(maxReconnectBackoff))
+                   .subscribe();
+    }
+}
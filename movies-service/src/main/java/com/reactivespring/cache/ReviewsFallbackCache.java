@@ -0,0 +1,49 @@
+package com.reactivespring.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactivespring.domain.Review;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Last reviews seen for each movie, served in place of the live list when movies-review-service misses its latency
+ * budget. Entries are only ever read for such degraded responses, which are marked as incomplete.
+ */
+@Component
+@Slf4j
+public class ReviewsFallbackCache {
+
+    private final Cache<String, List<Review>> cache;
+
+    public ReviewsFallbackCache(@Value("${movies.degradation.reviews.fallback.maximumSize:10000}") long maximumSize,
+                                @Value("${movies.degradation.reviews.fallback.ttl:1h}") Duration ttl,
+                                MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(maximumSize)
+                             .expireAfterWrite(ttl)
+                             .recordStats()
+                             .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "reviewsFallbackCache");
+        log.info("Reviews fallback cache maximumSize : {}, ttl : {}", maximumSize, ttl);
+    }
+
+    public Optional<List<Review>> get(String movieId) {
+        return Optional.ofNullable(cache.getIfPresent(movieId));
+    }
+
+    public void put(String movieId, List<Review> reviews) {
+        cache.put(movieId, reviews);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
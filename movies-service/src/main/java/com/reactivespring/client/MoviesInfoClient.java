@@ -0,0 +1,38 @@
+package com.reactivespring.client;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Calls to movies-info-service. {@code restClient.transport} picks the implementation, {@link MoviesInfoRestClient}
+ * over HTTP (the default) or {@link MoviesInfoRSocketClient}.
+ */
+public interface MoviesInfoClient {
+
+    default Mono<MovieInfo> fetchMovieInfo(String movieId) {
+        return fetchMovieInfo(movieId, null);
+    }
+
+    /**
+     * Fetches only {@code fields} of the movie info, all of them when {@code fields} is {@code null}.
+     */
+    Mono<MovieInfo> fetchMovieInfo(String movieId, @Nullable Set<String> fields);
+
+    Flux<MovieInfo> fetchMovieInfos(List<String> movieIds);
+
+    default Flux<MovieInfo> fetchMovieInfoStream() {
+        return fetchMovieInfoEvents().filter(event -> event.getType() != MovieInfoEvent.Type.DELETED)
+                                     .map(MovieInfoEvent::getMovieInfo);
+    }
+
+    /**
+     * Movie info changes as they happen, resuming after the last event seen when the stream is retried.
+     */
+    Flux<MovieInfoEvent> fetchMovieInfoEvents();
+}
@@ -0,0 +1,202 @@
+package com.reactivespring.client;
+
+import com.reactivespring.cache.MissingMovieInfoCache;
+import com.reactivespring.cache.MovieInfoCache;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import com.reactivespring.tracing.SignalTracer;
+import com.reactivespring.util.BatchLoader;
+import com.reactivespring.util.BatchPolicy;
+import com.reactivespring.util.ClientMetrics;
+import com.reactivespring.util.Deadline;
+import com.reactivespring.util.HedgePolicy;
+import com.reactivespring.util.ReconnectPolicy;
+import com.reactivespring.util.RetryPolicy;
+import io.rsocket.RSocketErrorException;
+import io.rsocket.exceptions.InvalidException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * {@link MoviesInfoClient} over one persistent, multiplexed RSocket connection. Lookups are request-response, the
+ * bulk lookup and the event stream are request-stream, so demand from the subscriber travels all the way to the
+ * movies-info-service replay sink. Caching, retries, hedging and metrics match {@link MoviesInfoRestClient}.
+ */
+@Component
+@ConditionalOnProperty(name = "restClient.transport", havingValue = "rsocket")
+@Slf4j
+public class MoviesInfoRSocketClient implements MoviesInfoClient {
+
+    private RSocketRequester moviesInfoRequester;
+    private MovieInfoCache movieInfoCache;
+    private MissingMovieInfoCache missingMovieInfoCache;
+    private RetryPolicy moviesInfoRetryPolicy;
+    private HedgePolicy moviesInfoHedgePolicy;
+    private ClientMetrics moviesInfoClientMetrics;
+    private BatchPolicy moviesInfoBatchPolicy;
+    private BatchLoader<String, MovieInfo> movieInfoBatchLoader;
+    private SignalTracer signalTracer;
+    private ReconnectPolicy movieInfoEventsReconnectPolicy;
+
+    @Value("${restClient.timeout.moviesInfo:2s}")
+    private Duration callTimeout;
+
+    public MoviesInfoRSocketClient(RSocketRequester moviesInfoRequester, MovieInfoCache movieInfoCache,
+                                   MissingMovieInfoCache missingMovieInfoCache, RetryPolicy moviesInfoRetryPolicy,
+                                   HedgePolicy moviesInfoHedgePolicy, ClientMetrics moviesInfoClientMetrics,
+                                   BatchPolicy moviesInfoBatchPolicy, SignalTracer signalTracer,
+                                   ReconnectPolicy movieInfoEventsReconnectPolicy) {
+        this.moviesInfoRequester = moviesInfoRequester;
+        this.movieInfoCache = movieInfoCache;
+        this.missingMovieInfoCache = missingMovieInfoCache;
+        this.moviesInfoRetryPolicy = moviesInfoRetryPolicy;
+        this.moviesInfoHedgePolicy = moviesInfoHedgePolicy;
+        this.moviesInfoClientMetrics = moviesInfoClientMetrics;
+        this.moviesInfoBatchPolicy = moviesInfoBatchPolicy;
+        this.movieInfoBatchLoader = moviesInfoBatchPolicy.loader(this::loadMovieInfos,
+                                                                 MoviesInfoClientException.class::isInstance);
+        this.signalTracer = signalTracer;
+        this.movieInfoEventsReconnectPolicy = movieInfoEventsReconnectPolicy;
+    }
+
+    @Override
+    public Mono<MovieInfo> fetchMovieInfo(String movieId, @Nullable Set<String> fields) {
+        return Mono.defer(() -> {
+            if (missingMovieInfoCache.isMissing(movieId)) {
+                return Mono.error(notFound(movieId));
+            }
+            return cachedOrLoaded(movieId, fields).doOnError(MoviesInfoClientException.class, exception -> {
+                if (exception.getStatusCode() == HttpStatus.NOT_FOUND.value()) {
+                    missingMovieInfoCache.markMissing(movieId);
+                }
+            });
+        });
+    }
+
+    private Mono<MovieInfo> cachedOrLoaded(String movieId, @Nullable Set<String> fields) {
+        if (fields == null) {
+            return movieInfoCache.get(movieId, id -> moviesInfoBatchPolicy.isEnabled()
+                    ? batchedMovieInfo(id)
+                    : loadMovieInfo(id, null));
+        }
+        return movieInfoCache.getIfPresent(movieId)
+                             .map(movieInfo -> Mono.just(movieInfo.project(fields)))
+                             .orElseGet(() -> loadMovieInfo(movieId, fields));
+    }
+
+    // concurrent misses for different ids share one bulk call, an id missing from its answer is a 404
+    private Mono<MovieInfo> batchedMovieInfo(String movieId) {
+        return movieInfoBatchLoader.load(movieId)
+                                   .switchIfEmpty(Mono.error(() -> notFound(movieId)));
+    }
+
+    private Mono<Map<String, MovieInfo>> loadMovieInfos(List<String> movieIds) {
+        return fetchMovieInfos(movieIds).collectMap(MovieInfo::getMovieInfoId, Function.identity());
+    }
+
+    private static MoviesInfoClientException notFound(String movieId) {
+        return new MoviesInfoClientException("There is no movieInfo available for the passed in Id : " + movieId,
+                                             HttpStatus.NOT_FOUND.value());
+    }
+
+    private Mono<MovieInfo> loadMovieInfo(String movieId, @Nullable Set<String> fields) {
+        // a fresh request per attempt, payloads are released once they have been sent
+        return Mono.defer(() -> {
+                       RSocketRequester.RequestSpec request = moviesInfoRequester.route("movieinfos.{id}", movieId);
+                       RSocketRequester.RetrieveSpec retrieve = fields != null
+                               ? request.data(String.join(",", fields))
+                               : request;
+                       return retrieve.retrieveMono(MovieInfo.class);
+                   })
+                   .onErrorMap(MoviesInfoRSocketClient::responderError)
+                   .switchIfEmpty(Mono.error(() -> notFound(movieId)))
+                   .transform(this::bounded)
+                   .transform(moviesInfoHedgePolicy::apply)
+                   .transform(moviesInfoRetryPolicy::apply)
+                   .transform(call -> moviesInfoClientMetrics.timed("fetchMovieInfo", call))
+                   .transform(signalTracer.mono("fetchMovieInfo"));
+    }
+
+    @Override
+    public Flux<MovieInfo> fetchMovieInfos(List<String> movieIds) {
+        return Flux.defer(() -> moviesInfoRequester.route("movieinfos.bulk")
+                                                   .data(movieIds)
+                                                   .retrieveFlux(MovieInfo.class))
+                   .onErrorMap(MoviesInfoRSocketClient::responderError)
+                   .transform(this::bounded)
+                   .transform(moviesInfoRetryPolicy::apply)
+                   .transform(call -> moviesInfoClientMetrics.timed("fetchMovieInfos", call))
+                   .transform(signalTracer.flux("fetchMovieInfos"));
+    }
+
+    @Override
+    public Flux<MovieInfoEvent> fetchMovieInfoEvents() {
+        return Flux.defer(() -> {
+            // reconnects resume after the last event seen instead of restarting the stream
+            AtomicReference<MovieInfoEvent> lastEvent = new AtomicReference<>();
+            return Flux.defer(() -> fetchMovieInfoEvents(lastEvent.get()))
+                       .doOnNext(event -> {
+                           MovieInfoEvent previous = lastEvent.getAndSet(event);
+                           if (previous != null && event.getEpoch() != previous.getEpoch()) {
+                               log.warn("Movie info stream restarted upstream, epoch {} after {}", event.getEpoch(),
+                                        previous.getEpoch());
+                           } else if (previous != null && event.getEventId() > previous.getEventId() + 1) {
+                               log.warn("Movie info stream skipped events {} to {}, they fell out of the replay window",
+                                        previous.getEventId() + 1,
+                                        event.getEventId() - 1);
+                           }
+                       })
+                       .transform(movieInfoEventsReconnectPolicy::apply);
+        });
+    }
+
+    private Flux<MovieInfoEvent> fetchMovieInfoEvents(@Nullable MovieInfoEvent lastEvent) {
+        RSocketRequester.RequestSpec request = moviesInfoRequester.route("movieinfos.stream");
+        RSocketRequester.RetrieveSpec retrieve = lastEvent != null
+                ? request.data(MovieInfoEvent.position(lastEvent))
+                : request;
+        return retrieve.retrieveFlux(MovieInfoEvent.class)
+                       .onErrorMap(MoviesInfoRSocketClient::responderError);
+    }
+
+    private <T> Mono<T> bounded(Mono<T> mono) {
+        return Deadline.bound(mono, callTimeout, this::timedOut);
+    }
+
+    private <T> Flux<T> bounded(Flux<T> flux) {
+        return Deadline.bound(flux, callTimeout, this::timedOut);
+    }
+
+    private MoviesInfoServerException timedOut() {
+        return new MoviesInfoServerException("MoviesInfoService did not respond within " + callTimeout);
+    }
+
+    // a request the responder found invalid fails the same way on every attempt, like a 4xx; a rejected request, a
+    // failure inside the responder or a lost connection is retryable like a 5xx
+    private static Throwable responderError(Throwable error) {
+        if (error instanceof InvalidException) {
+            return new MoviesInfoClientException(error.getMessage(), HttpStatus.BAD_REQUEST.value());
+        }
+        if (error instanceof RSocketErrorException || error instanceof IOException) {
+            return new MoviesInfoServerException("Server Exception in MoviesInfoService " + error.getMessage());
+        }
+        return error;
+    }
+}
@@ -1,35 +1,130 @@
 package com.reactivespring.client;
 
+import com.reactivespring.cache.MissingMovieInfoCache;
+import com.reactivespring.cache.MovieInfoCache;
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
 import com.reactivespring.exception.MoviesInfoClientException;
 import com.reactivespring.exception.MoviesInfoServerException;
-import com.reactivespring.util.RetryUtil;
+import com.reactivespring.tracing.SignalTracer;
+import com.reactivespring.util.BatchLoader;
+import com.reactivespring.util.BatchPolicy;
+import com.reactivespring.util.ClientMetrics;
+import com.reactivespring.util.Deadline;
+import com.reactivespring.util.HedgePolicy;
+import com.reactivespring.util.ReconnectPolicy;
+import com.reactivespring.util.RetryPolicy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
 @Component
+@ConditionalOnProperty(name = "restClient.transport", havingValue = "http", matchIfMissing = true)
 @Slf4j
-public class MoviesInfoRestClient {
+public class MoviesInfoRestClient implements MoviesInfoClient {
 
     private WebClient webClient;
+    private MovieInfoCache movieInfoCache;
+    private MissingMovieInfoCache missingMovieInfoCache;
+    private RetryPolicy moviesInfoRetryPolicy;
+    private HedgePolicy moviesInfoHedgePolicy;
+    private ClientMetrics moviesInfoClientMetrics;
+    private BatchPolicy moviesInfoBatchPolicy;
+    private BatchLoader<String, MovieInfo> movieInfoBatchLoader;
+    private SignalTracer signalTracer;
+    private ReconnectPolicy movieInfoEventsReconnectPolicy;
 
     @Value("${restClient.moviesInfoUrl}")
     private String moviesInfoUrl;
 
-    public MoviesInfoRestClient(WebClient webClient) {
-        this.webClient = webClient;
+    @Value("${restClient.timeout.moviesInfo:2s}")
+    private Duration callTimeout;
+
+    public MoviesInfoRestClient(WebClient webClient, MovieInfoCache movieInfoCache,
+                                MissingMovieInfoCache missingMovieInfoCache, RetryPolicy moviesInfoRetryPolicy,
+                                HedgePolicy moviesInfoHedgePolicy, ClientMetrics moviesInfoClientMetrics,
+                                BatchPolicy moviesInfoBatchPolicy, SignalTracer signalTracer,
+                                ReconnectPolicy movieInfoEventsReconnectPolicy) {
+        this.webClient = webClient.mutate()
+                                  .filter(moviesInfoClientMetrics.filter())
+                                  .build();
+        this.movieInfoCache = movieInfoCache;
+        this.missingMovieInfoCache = missingMovieInfoCache;
+        this.moviesInfoRetryPolicy = moviesInfoRetryPolicy;
+        this.moviesInfoHedgePolicy = moviesInfoHedgePolicy;
+        this.moviesInfoClientMetrics = moviesInfoClientMetrics;
+        this.moviesInfoBatchPolicy = moviesInfoBatchPolicy;
+        this.movieInfoBatchLoader = moviesInfoBatchPolicy.loader(this::loadMovieInfos,
+                                                                 MoviesInfoClientException.class::isInstance);
+        this.signalTracer = signalTracer;
+        this.movieInfoEventsReconnectPolicy = movieInfoEventsReconnectPolicy;
+    }
+
+    @Override
+    public Mono<MovieInfo> fetchMovieInfo(String movieId, @Nullable Set<String> fields) {
+        return Mono.defer(() -> {
+            if (missingMovieInfoCache.isMissing(movieId)) {
+                return Mono.error(notFound(movieId));
+            }
+            return cachedOrLoaded(movieId, fields).doOnError(MoviesInfoClientException.class, exception -> {
+                if (exception.getStatusCode() == HttpStatus.NOT_FOUND.value()) {
+                    missingMovieInfoCache.markMissing(movieId);
+                }
+            });
+        });
+    }
+
+    private Mono<MovieInfo> cachedOrLoaded(String movieId, @Nullable Set<String> fields) {
+        if (fields == null) {
+            return movieInfoCache.get(movieId, id -> moviesInfoBatchPolicy.isEnabled()
+                    ? batchedMovieInfo(id)
+                    : loadMovieInfo(id, null));
+        }
+        // a cached entry is projected locally, a miss fetches just the projection, which is not cached
+        return movieInfoCache.getIfPresent(movieId)
+                             .map(movieInfo -> Mono.just(movieInfo.project(fields)))
+                             .orElseGet(() -> loadMovieInfo(movieId, fields));
+    }
+
+    // concurrent misses for different ids share one bulk call, an id missing from its answer is a 404
+    private Mono<MovieInfo> batchedMovieInfo(String movieId) {
+        return movieInfoBatchLoader.load(movieId)
+                                   .switchIfEmpty(Mono.error(() -> notFound(movieId)));
+    }
+
+    private Mono<Map<String, MovieInfo>> loadMovieInfos(List<String> movieIds) {
+        return fetchMovieInfos(movieIds).collectMap(MovieInfo::getMovieInfoId, Function.identity());
+    }
+
+    private static MoviesInfoClientException notFound(String movieId) {
+        return new MoviesInfoClientException("There is no movieInfo available for the passed in Id : " + movieId,
+                                             HttpStatus.NOT_FOUND.value());
     }
 
-    public Mono<MovieInfo> fetchMovieInfo(String movieId) {
+    private Mono<MovieInfo> loadMovieInfo(String movieId, @Nullable Set<String> fields) {
 
-        String url = moviesInfoUrl.concat("/{id}");
+        UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(moviesInfoUrl.concat("/{id}"));
+        if (fields != null) {
+            uriBuilder.queryParam("fields", String.join(",", fields));
+        }
         return webClient.get()
-                        .uri(url, movieId)
+                        .uri(uriBuilder.buildAndExpand(movieId)
+                                       .toUriString())
                         .retrieve()
                         .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
                             log.info("Status code is : {}",
@@ -37,10 +132,7 @@ public class MoviesInfoRestClient {
                                                    .value());
                             if (clientResponse.statusCode()
                                               .equals(HttpStatus.NOT_FOUND)) {
-                                return Mono.error(new MoviesInfoClientException(
-                                        "There is no movieInfo available for the passed in Id : " + movieId,
-                                        clientResponse.statusCode()
-                                                      .value()));
+                                return Mono.error(notFound(movieId));
                             }
                             return clientResponse.bodyToMono(String.class)
                                                  .flatMap(responseMessage -> Mono.error(new MoviesInfoClientException(
@@ -57,16 +149,92 @@ public class MoviesInfoRestClient {
                                                          "Server Exception in MoviesInfoService " + responseMessage)));
                         })
                         .bodyToMono(MovieInfo.class)
-                        .retryWhen(RetryUtil.retrySpec())
-                        .log();
+                        .transform(this::bounded)
+                        .transform(moviesInfoHedgePolicy::apply)
+                        .transform(moviesInfoRetryPolicy::apply)
+                        .transform(call -> moviesInfoClientMetrics.timed("fetchMovieInfo", call))
+                        .transform(signalTracer.mono("fetchMovieInfo"));
     }
 
-    public Flux<MovieInfo> fetchMovieInfoStream() {
+    @Override
+    public Flux<MovieInfo> fetchMovieInfos(List<String> movieIds) {
+
+        String url = moviesInfoUrl.concat("/bulk");
+        return webClient.post()
+                        .uri(url)
+                        .bodyValue(movieIds)
+                        .retrieve()
+                        .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
+                            log.info("Status code is : {}",
+                                     clientResponse.statusCode()
+                                                   .value());
+                            return clientResponse.bodyToMono(String.class)
+                                                 .flatMap(responseMessage -> Mono.error(new MoviesInfoClientException(
+                                                         responseMessage,
+                                                         clientResponse.statusCode()
+                                                                       .value())));
+                        })
+                        .onStatus(HttpStatus::is5xxServerError, clientResponse -> {
+                            log.info("Status code is : {}",
+                                     clientResponse.statusCode()
+                                                   .value());
+                            return clientResponse.bodyToMono(String.class)
+                                                 .flatMap(responseMessage -> Mono.error(new MoviesInfoServerException(
+                                                         "Server Exception in MoviesInfoService " + responseMessage)));
+                        })
+                        .bodyToFlux(MovieInfo.class)
+                        .transform(this::bounded)
+                        .transform(moviesInfoRetryPolicy::apply)
+                        .transform(call -> moviesInfoClientMetrics.timed("fetchMovieInfos", call))
+                        .transform(signalTracer.flux("fetchMovieInfos"));
+    }
+
+    private <T> Mono<T> bounded(Mono<T> mono) {
+        return Deadline.bound(mono, callTimeout, this::timedOut);
+    }
+
+    private <T> Flux<T> bounded(Flux<T> flux) {
+        return Deadline.bound(flux, callTimeout, this::timedOut);
+    }
+
+    // a server exception, so a slow attempt is retried while the request deadline still allows it
+    private MoviesInfoServerException timedOut() {
+        return new MoviesInfoServerException("MoviesInfoService did not respond within " + callTimeout);
+    }
+
+    @Override
+    public Flux<MovieInfoEvent> fetchMovieInfoEvents() {
+        return Flux.defer(() -> {
+            // reconnects resume after the last event seen instead of restarting the stream
+            AtomicReference<MovieInfoEvent> lastEvent = new AtomicReference<>();
+            return Flux.defer(() -> fetchMovieInfoEvents(lastEvent.get()))
+                       .doOnNext(event -> {
+                           MovieInfoEvent previous = lastEvent.getAndSet(event);
+                           if (previous != null && event.getEpoch() != previous.getEpoch()) {
+                               log.warn("Movie info stream restarted upstream, epoch {} after {}", event.getEpoch(),
+                                        previous.getEpoch());
+                           } else if (previous != null && event.getEventId() > previous.getEventId() + 1) {
+                               log.warn("Movie info stream skipped events {} to {}, they fell out of the replay window",
+                                        previous.getEventId() + 1,
+                                        event.getEventId() - 1);
+                           }
+                       })
+                       .transform(movieInfoEventsReconnectPolicy::apply);
+        });
+    }
+
+    private Flux<MovieInfoEvent> fetchMovieInfoEvents(@Nullable MovieInfoEvent lastEvent) {
 
         String url = moviesInfoUrl.concat("/stream");
 
         return webClient.get()
                         .uri(url)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .headers(headers -> {
+                            if (lastEvent != null) {
+                                headers.set("Last-Event-ID", MovieInfoEvent.position(lastEvent));
+                            }
+                        })
                         .retrieve()
                         .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
                             log.info("Status code is : {}",
@@ -87,8 +255,6 @@ public class MoviesInfoRestClient {
                                                  .flatMap(responseMessage -> Mono.error(new MoviesInfoServerException(
                                                          "Server Exception in MoviesInfoService " + responseMessage)));
                         })
-                        .bodyToFlux(MovieInfo.class)
-                        .retryWhen(RetryUtil.retrySpec())
-                        .log();
+                        .bodyToFlux(MovieInfoEvent.class);
     }
 }
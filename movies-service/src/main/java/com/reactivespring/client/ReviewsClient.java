@@ -0,0 +1,43 @@
+package com.reactivespring.client;
+
+import com.reactivespring.domain.Review;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Calls to movies-review-service. {@code restClient.transport} picks the implementation, {@link ReviewsRestClient}
+ * over HTTP (the default) or {@link ReviewsRSocketClient}.
+ */
+public interface ReviewsClient {
+
+    default Flux<Review> fetchReviews(String movieId) {
+        return fetchReviews(movieId, null);
+    }
+
+    /**
+     * Fetches only {@code fields} of each review, all of them when {@code fields} is {@code null}.
+     */
+    Flux<Review> fetchReviews(String movieId, @Nullable Set<String> fields);
+
+    /**
+     * Reviews of {@code movieId} for passing straight on to a streamed response. Each review has to arrive within
+     * the idle timeout rather than the whole call within the call timeout, and an attempt is no longer retried or
+     * hedged once it has emitted a review, so nothing is sent twice.
+     */
+    Flux<Review> streamReviews(String movieId);
+
+    /**
+     * Reviews of all {@code movieIds} in one call, keyed by movie id.
+     */
+    Mono<Map<String, List<Review>>> fetchReviews(List<String> movieIds);
+
+    /**
+     * Reviews as they are added or updated, starting with the latest one.
+     */
+    Flux<Review> fetchReviewStream();
+}
@@ -0,0 +1,160 @@
+package com.reactivespring.client;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.ReviewsClientException;
+import com.reactivespring.exception.ReviewsServerException;
+import com.reactivespring.tracing.SignalTracer;
+import com.reactivespring.util.BatchLoader;
+import com.reactivespring.util.BatchPolicy;
+import com.reactivespring.util.ClientMetrics;
+import com.reactivespring.util.Deadline;
+import com.reactivespring.util.HedgePolicy;
+import com.reactivespring.util.RetryPolicy;
+import io.rsocket.RSocketErrorException;
+import io.rsocket.exceptions.InvalidException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * {@link ReviewsClient} over one persistent, multiplexed RSocket connection. Reviews of a movie are a request-stream,
+ * the bulk lookup is request-response and the review stream is request-stream. Retries, hedging and metrics match
+ * {@link ReviewsRestClient}.
+ */
+@Component
+@ConditionalOnProperty(name = "restClient.transport", havingValue = "rsocket")
+public class ReviewsRSocketClient implements ReviewsClient {
+
+    private RSocketRequester reviewsRequester;
+    private RetryPolicy reviewsRetryPolicy;
+    private HedgePolicy reviewsHedgePolicy;
+    private ClientMetrics reviewsClientMetrics;
+    private BatchPolicy reviewsBatchPolicy;
+    private BatchLoader<String, List<Review>> reviewsBatchLoader;
+    private SignalTracer signalTracer;
+
+    @Value("${restClient.timeout.reviews:2s}")
+    private Duration callTimeout;
+
+    @Value("${restClient.timeout.reviewsIdle:2s}")
+    private Duration idleTimeout;
+
+    public ReviewsRSocketClient(RSocketRequester reviewsRequester, RetryPolicy reviewsRetryPolicy,
+                                HedgePolicy reviewsHedgePolicy, ClientMetrics reviewsClientMetrics,
+                                BatchPolicy reviewsBatchPolicy, SignalTracer signalTracer) {
+        this.reviewsRequester = reviewsRequester;
+        this.reviewsRetryPolicy = reviewsRetryPolicy;
+        this.reviewsHedgePolicy = reviewsHedgePolicy;
+        this.reviewsClientMetrics = reviewsClientMetrics;
+        this.reviewsBatchPolicy = reviewsBatchPolicy;
+        this.reviewsBatchLoader = reviewsBatchPolicy.loader(this::fetchReviews, ReviewsClientException.class::isInstance);
+        this.signalTracer = signalTracer;
+    }
+
+    @Override
+    public Flux<Review> fetchReviews(String movieId, @Nullable Set<String> fields) {
+        if (fields == null && reviewsBatchPolicy.isEnabled()) {
+            // concurrent lookups for different movies share one bulk call
+            return reviewsBatchLoader.load(movieId)
+                                     .flatMapIterable(Function.identity());
+        }
+        return reviewsRequest(movieId, fields).transform(this::bounded)
+                                              .transform(reviewsHedgePolicy::apply)
+                                              .transform(reviewsRetryPolicy::apply)
+                                              .transform(call -> reviewsClientMetrics.timed("fetchReviews", call))
+                                              .transform(signalTracer.flux("fetchReviews"));
+    }
+
+    @Override
+    public Flux<Review> streamReviews(String movieId) {
+        if (reviewsBatchPolicy.isEnabled()) {
+            // a batched lookup hands over all reviews of the movie at once, there is nothing to repeat
+            return reviewsBatchLoader.load(movieId)
+                                     .flatMapIterable(Function.identity());
+        }
+        // a hedge only races the first request up to its first signal, so it never follows partial output
+        return reviewsRequest(movieId, null).transform(this::idleBounded)
+                                            .transform(reviewsHedgePolicy::apply)
+                                            .transform(reviewsRetryPolicy::applyUntilFirst)
+                                            .transform(call -> reviewsClientMetrics.timed("streamReviews", call))
+                                            .transform(signalTracer.flux("streamReviews"));
+    }
+
+    private Flux<Review> reviewsRequest(String movieId, @Nullable Set<String> fields) {
+        // a fresh request per attempt, payloads are released once they have been sent
+        return Flux.defer(() -> {
+                       RSocketRequester.RequestSpec request = reviewsRequester.route("reviews.{movieInfoId}", movieId);
+                       RSocketRequester.RetrieveSpec retrieve = fields != null
+                               ? request.data(String.join(",", fields))
+                               : request;
+                       return retrieve.retrieveFlux(Review.class);
+                   })
+                   .onErrorMap(ReviewsRSocketClient::responderError);
+    }
+
+    @Override
+    public Mono<Map<String, List<Review>>> fetchReviews(List<String> movieIds) {
+        return Mono.defer(() -> reviewsRequester.route("reviews.bulk")
+                                                .data(movieIds)
+                                                .retrieveMono(new ParameterizedTypeReference<Map<String, List<Review>>>() {
+                                                }))
+                   .onErrorMap(ReviewsRSocketClient::responderError)
+                   .defaultIfEmpty(Collections.emptyMap())
+                   .transform(this::bounded)
+                   .transform(reviewsRetryPolicy::apply)
+                   .transform(call -> reviewsClientMetrics.timed("fetchReviewsBulk", call))
+                   .transform(signalTracer.mono("fetchReviewsBulk"));
+    }
+
+    @Override
+    public Flux<Review> fetchReviewStream() {
+        return Flux.defer(() -> reviewsRequester.route("reviews.stream")
+                                                .retrieveFlux(Review.class))
+                   .onErrorMap(ReviewsRSocketClient::responderError);
+    }
+
+    private <T> Mono<T> bounded(Mono<T> mono) {
+        return Deadline.bound(mono, callTimeout, this::timedOut);
+    }
+
+    private <T> Flux<T> bounded(Flux<T> flux) {
+        return Deadline.bound(flux, callTimeout, this::timedOut);
+    }
+
+    private <T> Flux<T> idleBounded(Flux<T> flux) {
+        return Deadline.idle(flux, idleTimeout, this::wentIdle);
+    }
+
+    private ReviewsServerException timedOut() {
+        return new ReviewsServerException("ReviewsService did not respond within " + callTimeout);
+    }
+
+    private ReviewsServerException wentIdle() {
+        return new ReviewsServerException("ReviewsService sent nothing for " + idleTimeout);
+    }
+
+    // a request the responder found invalid fails the same way on every attempt, like a 4xx; a rejected request, a
+    // failure inside the responder or a lost connection is retryable like a 5xx
+    private static Throwable responderError(Throwable error) {
+        if (error instanceof InvalidException) {
+            return new ReviewsClientException(error.getMessage());
+        }
+        if (error instanceof RSocketErrorException || error instanceof IOException) {
+            return new ReviewsServerException("Server Exception in ReviewsService " + error.getMessage());
+        }
+        return error;
+    }
+}
@@ -3,38 +3,114 @@ package com.reactivespring.client;
 import com.reactivespring.domain.Review;
 import com.reactivespring.exception.ReviewsClientException;
 import com.reactivespring.exception.ReviewsServerException;
-import com.reactivespring.util.RetryUtil;
+import com.reactivespring.tracing.SignalTracer;
+import com.reactivespring.util.BatchLoader;
+import com.reactivespring.util.BatchPolicy;
+import com.reactivespring.util.ClientMetrics;
+import com.reactivespring.util.Deadline;
+import com.reactivespring.util.HedgePolicy;
+import com.reactivespring.util.RetryPolicy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
 @Component
+@ConditionalOnProperty(name = "restClient.transport", havingValue = "http", matchIfMissing = true)
 @Slf4j
-public class ReviewsRestClient {
+public class ReviewsRestClient implements ReviewsClient {
 
     private WebClient webClient;
+    private RetryPolicy reviewsRetryPolicy;
+    private HedgePolicy reviewsHedgePolicy;
+    private ClientMetrics reviewsClientMetrics;
+    private BatchPolicy reviewsBatchPolicy;
+    private BatchLoader<String, List<Review>> reviewsBatchLoader;
+    private SignalTracer signalTracer;
 
     @Value("${restClient.reviewsUrl}")
     private String reviewsUrl;
 
-    public ReviewsRestClient(WebClient webClient) {
-        this.webClient = webClient;
+    @Value("${restClient.timeout.reviews:2s}")
+    private Duration callTimeout;
+
+    @Value("${restClient.timeout.reviewsIdle:2s}")
+    private Duration idleTimeout;
+
+    public ReviewsRestClient(WebClient webClient, RetryPolicy reviewsRetryPolicy, HedgePolicy reviewsHedgePolicy,
+                             ClientMetrics reviewsClientMetrics, BatchPolicy reviewsBatchPolicy,
+                             SignalTracer signalTracer) {
+        this.webClient = webClient.mutate()
+                                  .filter(reviewsClientMetrics.filter())
+                                  .build();
+        this.reviewsRetryPolicy = reviewsRetryPolicy;
+        this.reviewsHedgePolicy = reviewsHedgePolicy;
+        this.reviewsClientMetrics = reviewsClientMetrics;
+        this.reviewsBatchPolicy = reviewsBatchPolicy;
+        this.reviewsBatchLoader = reviewsBatchPolicy.loader(this::fetchReviews, ReviewsClientException.class::isInstance);
+        this.signalTracer = signalTracer;
     }
 
 //    "movieInfoId"
 
 
-    public Flux<Review> fetchReviews(String movieId) {
+    @Override
+    public Flux<Review> fetchReviews(String movieId, @Nullable Set<String> fields) {
+
+        if (fields == null && reviewsBatchPolicy.isEnabled()) {
+            // concurrent lookups for different movies share one bulk call
+            return reviewsBatchLoader.load(movieId)
+                                     .flatMapIterable(Function.identity());
+        }
+
+        return reviewsRequest(movieId, fields).transform(this::bounded)
+                                              .transform(reviewsHedgePolicy::apply)
+                                              .transform(reviewsRetryPolicy::apply)
+                                              .transform(call -> reviewsClientMetrics.timed("fetchReviews", call))
+                                              .transform(signalTracer.flux("fetchReviews"));
+    }
+
+    @Override
+    public Flux<Review> streamReviews(String movieId) {
+
+        if (reviewsBatchPolicy.isEnabled()) {
+            // a batched lookup hands over all reviews of the movie at once, there is nothing to repeat
+            return reviewsBatchLoader.load(movieId)
+                                     .flatMapIterable(Function.identity());
+        }
+
+        // a hedge only races the first request up to its first signal, so it never follows partial output
+        return reviewsRequest(movieId, null).transform(this::idleBounded)
+                                            .transform(reviewsHedgePolicy::apply)
+                                            .transform(reviewsRetryPolicy::applyUntilFirst)
+                                            .transform(call -> reviewsClientMetrics.timed("streamReviews", call))
+                                            .transform(signalTracer.flux("streamReviews"));
+    }
+
+    private Flux<Review> reviewsRequest(String movieId, @Nullable Set<String> fields) {
 
-        String url = UriComponentsBuilder.fromHttpUrl(reviewsUrl)
-                                         .queryParam("movieInfoId", movieId)
-                                         .buildAndExpand()
-                                         .toUriString();
+        UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(reviewsUrl)
+                                                              .queryParam("movieInfoId", movieId);
+        if (fields != null) {
+            uriBuilder.queryParam("fields", String.join(",", fields));
+        }
+        String url = uriBuilder.buildAndExpand()
+                               .toUriString();
 
         return webClient.get()
                         .uri(url)
@@ -59,7 +135,92 @@ public class ReviewsRestClient {
                                                  .flatMap(responseMessage -> Mono.error(new ReviewsServerException(
                                                          "Server Exception in ReviewsService " + responseMessage)));
                         })
-                        .bodyToFlux(Review.class)
-                        .retryWhen(RetryUtil.retrySpec());
+                        .bodyToFlux(Review.class);
+    }
+
+    @Override
+    public Mono<Map<String, List<Review>>> fetchReviews(List<String> movieIds) {
+
+        String url = reviewsUrl.concat("/bulk");
+
+        return webClient.post()
+                        .uri(url)
+                        .bodyValue(movieIds)
+                        .retrieve()
+                        .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
+                            log.info("Status code is : {}",
+                                     clientResponse.statusCode()
+                                                   .value());
+                            if (clientResponse.statusCode()
+                                              .equals(HttpStatus.NOT_FOUND)) {
+                                return Mono.empty();
+                            }
+                            return clientResponse.bodyToMono(String.class)
+                                                 .flatMap(responseMessage -> Mono.error(new ReviewsClientException(
+                                                         responseMessage)));
+                        })
+                        .onStatus(HttpStatus::is5xxServerError, clientResponse -> {
+                            log.info("Status code is : {}",
+                                     clientResponse.statusCode()
+                                                   .value());
+                            return clientResponse.bodyToMono(String.class)
+                                                 .flatMap(responseMessage -> Mono.error(new ReviewsServerException(
+                                                         "Server Exception in ReviewsService " + responseMessage)));
+                        })
+                        .bodyToMono(new ParameterizedTypeReference<Map<String, List<Review>>>() {
+                        })
+                        .defaultIfEmpty(Collections.emptyMap())
+                        .transform(this::bounded)
+                        .transform(reviewsRetryPolicy::apply)
+                        .transform(call -> reviewsClientMetrics.timed("fetchReviewsBulk", call))
+                        .transform(signalTracer.mono("fetchReviewsBulk"));
+    }
+
+    @Override
+    public Flux<Review> fetchReviewStream() {
+
+        String url = reviewsUrl.concat("/stream");
+
+        return webClient.get()
+                        .uri(url)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .retrieve()
+                        .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
+                            log.info("Status code is : {}",
+                                     clientResponse.statusCode()
+                                                   .value());
+                            return clientResponse.bodyToMono(String.class)
+                                                 .flatMap(responseMessage -> Mono.error(new ReviewsClientException(
+                                                         responseMessage)));
+                        })
+                        .onStatus(HttpStatus::is5xxServerError, clientResponse -> {
+                            log.info("Status code is : {}",
+                                     clientResponse.statusCode()
+                                                   .value());
+                            return clientResponse.bodyToMono(String.class)
+                                                 .flatMap(responseMessage -> Mono.error(new ReviewsServerException(
+                                                         "Server Exception in ReviewsService " + responseMessage)));
+                        })
+                        .bodyToFlux(Review.class);
+    }
+
+    private <T> Mono<T> bounded(Mono<T> mono) {
+        return Deadline.bound(mono, callTimeout, this::timedOut);
+    }
+
+    private <T> Flux<T> bounded(Flux<T> flux) {
+        return Deadline.bound(flux, callTimeout, this::timedOut);
+    }
+
+    private <T> Flux<T> idleBounded(Flux<T> flux) {
+        return Deadline.idle(flux, idleTimeout, this::wentIdle);
+    }
+
+    private ReviewsServerException timedOut() {
+        return new ReviewsServerException("ReviewsService did not respond within " + callTimeout);
+    }
+
+    private ReviewsServerException wentIdle() {
+        return new ReviewsServerException("ReviewsService sent nothing for " + idleTimeout);
     }
 }
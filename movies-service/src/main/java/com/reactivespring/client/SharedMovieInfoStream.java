@@ -0,0 +1,65 @@
+package com.reactivespring.client;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One upstream /v1/movieinfos/stream connection per movies-service instance, multicast to every local
+ * subscriber. The connection is opened by the first subscriber and closed {@code gracePeriod} after the last
+ * one leaves. Each subscriber gets its own bounded buffer, so a slow client drops elements instead of slowing
+ * down everybody else.
+ */
+@Component
+@Slf4j
+public class SharedMovieInfoStream {
+
+    private final Flux<MovieInfoEvent> sharedStream;
+    private final int subscriberBufferSize;
+    private final BufferOverflowStrategy overflowStrategy;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter dropped;
+
+    public SharedMovieInfoStream(MoviesInfoClient moviesInfoClient,
+                                 @Value("${restClient.movieInfoStream.gracePeriod:30s}") Duration gracePeriod,
+                                 @Value("${restClient.movieInfoStream.subscriberBufferSize:512}") int subscriberBufferSize,
+                                 @Value("${restClient.movieInfoStream.overflowStrategy:DROP_OLDEST}") String overflowStrategy,
+                                 MeterRegistry meterRegistry) {
+        this.subscriberBufferSize = subscriberBufferSize;
+        this.overflowStrategy = BufferOverflowStrategy.valueOf(overflowStrategy.toUpperCase());
+        this.sharedStream = Flux.defer(moviesInfoClient::fetchMovieInfoEvents)
+                                .doOnSubscribe(subscription -> log.info("Connecting to the upstream movie info stream"))
+                                .doFinally(signalType -> log.info("Upstream movie info stream closed : {}", signalType))
+                                .publish()
+                                .refCount(1, gracePeriod);
+
+        this.dropped = Counter.builder("movieinfo.stream.dropped")
+                              .description("Movie info events dropped because a subscriber's buffer was full")
+                              .register(meterRegistry);
+        Gauge.builder("movieinfo.stream.subscribers", subscribers, AtomicInteger::get)
+             .description("Local subscribers of the shared movie info stream")
+             .register(meterRegistry);
+    }
+
+    public Flux<MovieInfo> stream() {
+        return events().filter(event -> event.getType() != MovieInfoEvent.Type.DELETED)
+                       .map(MovieInfoEvent::getMovieInfo);
+    }
+
+    public Flux<MovieInfoEvent> events() {
+        return sharedStream.onBackpressureBuffer(subscriberBufferSize, event -> dropped.increment(), overflowStrategy)
+                           .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                           .doFinally(signalType -> subscribers.decrementAndGet());
+    }
+}
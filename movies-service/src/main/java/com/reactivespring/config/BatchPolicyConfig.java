@@ -0,0 +1,29 @@
+package com.reactivespring.config;
+
+import com.reactivespring.util.BatchPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class BatchPolicyConfig {
+
+    @Bean
+    public BatchPolicy moviesInfoBatchPolicy(MeterRegistry meterRegistry,
+                                             @Value("${restClient.batching.moviesInfo.enabled:false}") boolean enabled,
+                                             @Value("${restClient.batching.moviesInfo.window:2ms}") Duration window,
+                                             @Value("${restClient.batching.moviesInfo.maxBatchSize:100}") int maxBatchSize) {
+        return new BatchPolicy("moviesInfo", enabled, window, maxBatchSize, meterRegistry);
+    }
+
+    @Bean
+    public BatchPolicy reviewsBatchPolicy(MeterRegistry meterRegistry,
+                                          @Value("${restClient.batching.reviews.enabled:false}") boolean enabled,
+                                          @Value("${restClient.batching.reviews.window:2ms}") Duration window,
+                                          @Value("${restClient.batching.reviews.maxBatchSize:100}") int maxBatchSize) {
+        return new BatchPolicy("reviews", enabled, window, maxBatchSize, meterRegistry);
+    }
+}
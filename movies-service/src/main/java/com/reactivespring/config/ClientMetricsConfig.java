@@ -0,0 +1,20 @@
+package com.reactivespring.config;
+
+import com.reactivespring.util.ClientMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ClientMetricsConfig {
+
+    @Bean
+    public ClientMetrics moviesInfoClientMetrics(MeterRegistry meterRegistry) {
+        return new ClientMetrics("moviesInfo", meterRegistry);
+    }
+
+    @Bean
+    public ClientMetrics reviewsClientMetrics(MeterRegistry meterRegistry) {
+        return new ClientMetrics("reviews", meterRegistry);
+    }
+}
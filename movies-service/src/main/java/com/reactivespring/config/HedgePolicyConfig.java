@@ -0,0 +1,51 @@
+package com.reactivespring.config;
+
+import com.reactivespring.util.HedgePolicy;
+import com.reactivespring.util.LatencyTracker;
+import com.reactivespring.util.RetryBudget;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class HedgePolicyConfig {
+
+    @Bean
+    public HedgePolicy moviesInfoHedgePolicy(MeterRegistry meterRegistry,
+                                             @Value("${restClient.hedge.moviesInfo.enabled:false}") boolean enabled,
+                                             @Value("${restClient.hedge.moviesInfo.percentile:95}") double percentile,
+                                             @Value("${restClient.hedge.moviesInfo.windowSize:1000}") int windowSize,
+                                             @Value("${restClient.hedge.moviesInfo.minDelay:10ms}") Duration minDelay,
+                                             @Value("${restClient.hedge.moviesInfo.maxDelay:500ms}") Duration maxDelay,
+                                             @Value("${restClient.hedge.moviesInfo.budget.maxTokens:10}") double maxTokens,
+                                             @Value("${restClient.hedge.moviesInfo.budget.tokenRatio:0.05}") double tokenRatio) {
+        return new HedgePolicy("moviesInfo",
+                               enabled,
+                               minDelay,
+                               maxDelay,
+                               new LatencyTracker(windowSize, percentile, Math.max(1, windowSize / 10)),
+                               new RetryBudget(maxTokens, tokenRatio),
+                               meterRegistry);
+    }
+
+    @Bean
+    public HedgePolicy reviewsHedgePolicy(MeterRegistry meterRegistry,
+                                          @Value("${restClient.hedge.reviews.enabled:false}") boolean enabled,
+                                          @Value("${restClient.hedge.reviews.percentile:95}") double percentile,
+                                          @Value("${restClient.hedge.reviews.windowSize:1000}") int windowSize,
+                                          @Value("${restClient.hedge.reviews.minDelay:10ms}") Duration minDelay,
+                                          @Value("${restClient.hedge.reviews.maxDelay:500ms}") Duration maxDelay,
+                                          @Value("${restClient.hedge.reviews.budget.maxTokens:10}") double maxTokens,
+                                          @Value("${restClient.hedge.reviews.budget.tokenRatio:0.05}") double tokenRatio) {
+        return new HedgePolicy("reviews",
+                               enabled,
+                               minDelay,
+                               maxDelay,
+                               new LatencyTracker(windowSize, percentile, Math.max(1, windowSize / 10)),
+                               new RetryBudget(maxTokens, tokenRatio),
+                               meterRegistry);
+    }
+}
@@ -0,0 +1,45 @@
+package com.reactivespring.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * One requester per backend. Each connects lazily on first use, multiplexes every call over that single
+ * connection and reconnects in the background when it drops.
+ */
+@Configuration
+@ConditionalOnProperty(name = "restClient.transport", havingValue = "rsocket")
+@Slf4j
+public class RSocketClientConfig {
+
+    @Value("${restClient.rsocket.reconnectDelay:1s}")
+    private Duration reconnectDelay;
+
+    @Bean(destroyMethod = "dispose")
+    public RSocketRequester moviesInfoRequester(RSocketRequester.Builder builder,
+                                                @Value("${restClient.rsocket.moviesInfo.host:localhost}") String host,
+                                                @Value("${restClient.rsocket.moviesInfo.port:7080}") int port) {
+        return requester(builder, host, port);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public RSocketRequester reviewsRequester(RSocketRequester.Builder builder,
+                                             @Value("${restClient.rsocket.reviews.host:localhost}") String host,
+                                             @Value("${restClient.rsocket.reviews.port:7081}") int port) {
+        return requester(builder, host, port);
+    }
+
+    private RSocketRequester requester(RSocketRequester.Builder builder, String host, int port) {
+        log.info("Outbound RSocket connection : {}:{}", host, port);
+        return builder.rsocketConnector(connector -> connector.reconnect(Retry.fixedDelay(Long.MAX_VALUE,
+                                                                                          reconnectDelay)))
+                      .tcp(host, port);
+    }
+}
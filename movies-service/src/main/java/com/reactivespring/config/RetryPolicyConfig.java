@@ -0,0 +1,78 @@
+package com.reactivespring.config;
+
+import com.reactivespring.exception.MoviesInfoServerException;
+import com.reactivespring.exception.ReviewsServerException;
+import com.reactivespring.util.CircuitBreaker;
+import com.reactivespring.util.ReconnectPolicy;
+import com.reactivespring.util.RetryBudget;
+import com.reactivespring.util.RetryPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+
+import java.io.IOException;
+import java.time.Duration;
+
+@Configuration
+public class RetryPolicyConfig {
+
+    @Bean
+    public RetryPolicy moviesInfoRetryPolicy(MeterRegistry meterRegistry,
+                                             @Value("${restClient.retry.moviesInfo.maxRetries:3}") long maxRetries,
+                                             @Value("${restClient.retry.moviesInfo.minBackoff:100ms}") Duration minBackoff,
+                                             @Value("${restClient.retry.moviesInfo.maxBackoff:2s}") Duration maxBackoff,
+                                             @Value("${restClient.retry.moviesInfo.jitter:0.5}") double jitter,
+                                             @Value("${restClient.retry.moviesInfo.budget.maxTokens:10}") double maxTokens,
+                                             @Value("${restClient.retry.moviesInfo.budget.tokenRatio:0.1}") double tokenRatio,
+                                             @Value("${restClient.retry.moviesInfo.circuitBreaker.failureThreshold:10}") int failureThreshold,
+                                             @Value("${restClient.retry.moviesInfo.circuitBreaker.openDuration:10s}") Duration openDuration,
+                                             @Value("${restClient.retry.moviesInfo.circuitBreaker.halfOpenProbes:3}") int halfOpenProbes) {
+        return new RetryPolicy("moviesInfo",
+                               maxRetries,
+                               minBackoff,
+                               maxBackoff,
+                               jitter,
+                               ex -> ex instanceof MoviesInfoServerException,
+                               new RetryBudget(maxTokens, tokenRatio),
+                               new CircuitBreaker(failureThreshold, openDuration, halfOpenProbes),
+                               meterRegistry);
+    }
+
+    @Bean
+    public RetryPolicy reviewsRetryPolicy(MeterRegistry meterRegistry,
+                                          @Value("${restClient.retry.reviews.maxRetries:3}") long maxRetries,
+                                          @Value("${restClient.retry.reviews.minBackoff:100ms}") Duration minBackoff,
+                                          @Value("${restClient.retry.reviews.maxBackoff:2s}") Duration maxBackoff,
+                                          @Value("${restClient.retry.reviews.jitter:0.5}") double jitter,
+                                          @Value("${restClient.retry.reviews.budget.maxTokens:10}") double maxTokens,
+                                          @Value("${restClient.retry.reviews.budget.tokenRatio:0.1}") double tokenRatio,
+                                          @Value("${restClient.retry.reviews.circuitBreaker.failureThreshold:10}") int failureThreshold,
+                                          @Value("${restClient.retry.reviews.circuitBreaker.openDuration:10s}") Duration openDuration,
+                                          @Value("${restClient.retry.reviews.circuitBreaker.halfOpenProbes:3}") int halfOpenProbes) {
+        return new RetryPolicy("reviews",
+                               maxRetries,
+                               minBackoff,
+                               maxBackoff,
+                               jitter,
+                               ex -> ex instanceof ReviewsServerException,
+                               new RetryBudget(maxTokens, tokenRatio),
+                               new CircuitBreaker(failureThreshold, openDuration, halfOpenProbes),
+                               meterRegistry);
+    }
+
+    @Bean
+    public ReconnectPolicy movieInfoEventsReconnectPolicy(MeterRegistry meterRegistry,
+                                                          @Value("${restClient.movieInfoStream.minReconnectBackoff:1s}") Duration minBackoff,
+                                                          @Value("${restClient.movieInfoStream.maxReconnectBackoff:30s}") Duration maxBackoff) {
+        // besides server errors, a dropped connection (reset, premature close, refused) is resumable
+        return new ReconnectPolicy("movieInfoEvents",
+                                   minBackoff,
+                                   maxBackoff,
+                                   ex -> ex instanceof MoviesInfoServerException
+                                           || ex instanceof WebClientRequestException
+                                           || ex instanceof IOException,
+                                   meterRegistry);
+    }
+}
@@ -1,14 +1,146 @@
 package com.reactivespring.config;
 
+import com.reactivespring.tracing.SignalTracer;
+import com.reactivespring.util.Deadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.transport.AddressUtils;
+
+import java.net.SocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
+@Slf4j
 public class WebClientConfig {
 
+    private static final String ACQUIRE_START = WebClientConfig.class.getName() + ".ACQUIRE_START";
+
+    @Value("${restClient.moviesInfoUrl}")
+    private String moviesInfoUrl;
+
+    @Value("${restClient.reviewsUrl}")
+    private String reviewsUrl;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider connectionProvider(@Value("${restClient.pool.maxConnections:500}") int maxConnections,
+                                                 @Value("${restClient.pool.pendingAcquireMaxCount:1000}") int pendingAcquireMaxCount,
+                                                 @Value("${restClient.pool.pendingAcquireTimeout:2s}") Duration pendingAcquireTimeout,
+                                                 @Value("${restClient.pool.maxIdleTime:30s}") Duration maxIdleTime,
+                                                 @Value("${restClient.pool.maxLifeTime:5m}") Duration maxLifeTime,
+                                                 @Value("${restClient.pool.evictionInterval:30s}") Duration evictionInterval,
+                                                 @Value("${restClient.pool.moviesInfo.maxConnections:200}") int moviesInfoMaxConnections,
+                                                 @Value("${restClient.pool.moviesInfo.pendingAcquireMaxCount:400}") int moviesInfoPendingAcquireMaxCount,
+                                                 @Value("${restClient.pool.reviews.maxConnections:200}") int reviewsMaxConnections,
+                                                 @Value("${restClient.pool.reviews.pendingAcquireMaxCount:400}") int reviewsPendingAcquireMaxCount) {
+
+        return ConnectionProvider.builder("movies-service")
+                                 .maxConnections(maxConnections)
+                                 .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                                 .pendingAcquireTimeout(pendingAcquireTimeout)
+                                 .maxIdleTime(maxIdleTime)
+                                 .maxLifeTime(maxLifeTime)
+                                 .evictInBackground(evictionInterval)
+                                 .metrics(true)
+                                 .forRemoteHost(remoteAddress(moviesInfoUrl), spec -> spec.maxConnections(moviesInfoMaxConnections)
+                                                                                          .pendingAcquireMaxCount(moviesInfoPendingAcquireMaxCount)
+                                                                                          .pendingAcquireTimeout(pendingAcquireTimeout)
+                                                                                          .maxIdleTime(maxIdleTime)
+                                                                                          .maxLifeTime(maxLifeTime)
+                                                                                          .evictInBackground(evictionInterval)
+                                                                                          .metrics(true))
+                                 .forRemoteHost(remoteAddress(reviewsUrl), spec -> spec.maxConnections(reviewsMaxConnections)
+                                                                                       .pendingAcquireMaxCount(reviewsPendingAcquireMaxCount)
+                                                                                       .pendingAcquireTimeout(pendingAcquireTimeout)
+                                                                                       .maxIdleTime(maxIdleTime)
+                                                                                       .maxLifeTime(maxLifeTime)
+                                                                                       .evictInBackground(evictionInterval)
+                                                                                       .metrics(true))
+                                 .build();
+    }
+
+    @Bean
+    public HttpClient httpClient(ConnectionProvider connectionProvider, MeterRegistry meterRegistry,
+                                 @Value("${restClient.http2.enabled:false}") boolean http2Enabled,
+                                 @Value("${restClient.compression.enabled:true}") boolean compressionEnabled) {
+
+        Timer acquireTimer = Timer.builder("restclient.connection.acquire")
+                                  .description("Time from sending a request until a pooled connection is ready to write it")
+                                  .publishPercentileHistogram()
+                                  .register(meterRegistry);
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                                          .doOnRequest((request, connection) -> request.currentContextView()
+                                                                                       .<Long>getOrEmpty(ACQUIRE_START)
+                                                                                       .ifPresent(start -> acquireTimer.record(
+                                                                                               System.nanoTime() - start,
+                                                                                               TimeUnit.NANOSECONDS)));
+        if (http2Enabled) {
+            // h2c with an HTTP/1.1 upgrade, so a backend without HTTP/2 support keeps working
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        log.info("Outbound HTTP protocols : {}", http2Enabled ? "h2c, http/1.1" : "http/1.1");
+        // sends Accept-Encoding: gzip and inflates compressed responses before they reach the codecs
+        return httpClient.compress(compressionEnabled);
+    }
+
     @Bean
-    public WebClient webClient(WebClient.Builder builder) {
-        return builder.build();
+    public WebClient webClient(WebClient.Builder builder, HttpClient httpClient,
+                               @Value("${restClient.wireFormat:smile}") String wireFormat) {
+        if ("smile".equalsIgnoreCase(wireFormat)) {
+            // internal services answer in Smile when asked to, anything else still falls back to JSON
+            builder.defaultHeader(HttpHeaders.ACCEPT, "application/x-jackson-smile, application/json;q=0.9, */*;q=0.8");
+        }
+        log.info("Outbound wire format : {}", wireFormat);
+        return builder.clientConnector(new ReactorClientHttpConnector(httpClient))
+                      .filter(deadlineFilter())
+                      .filter(traceFilter())
+                      .filter(acquireStartFilter())
+                      .build();
+    }
+
+    private static ExchangeFilterFunction deadlineFilter() {
+        return (request, next) -> Mono.deferContextual(context -> next.exchange(
+                Deadline.from(context)
+                        .map(deadline -> ClientRequest.from(request)
+                                                      .header(Deadline.HEADER,
+                                                              String.valueOf(deadline.remaining()
+                                                                                     .toMillis()))
+                                                      .build())
+                        .orElse(request)));
+    }
+
+    private static ExchangeFilterFunction traceFilter() {
+        return (request, next) -> Mono.deferContextual(context -> next.exchange(
+                SignalTracer.currentTraceId(context)
+                            .map(traceId -> ClientRequest.from(request)
+                                                         .header(SignalTracer.HEADER, traceId)
+                                                         .build())
+                            .orElse(request)));
+    }
+
+    private static ExchangeFilterFunction acquireStartFilter() {
+        return (request, next) -> next.exchange(request)
+                                      .contextWrite(context -> context.put(ACQUIRE_START, System.nanoTime()));
+    }
+
+    private static SocketAddress remoteAddress(String url) {
+        URI uri = URI.create(url);
+        int port = uri.getPort() != -1 ? uri.getPort() : ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+        return AddressUtils.createUnresolved(uri.getHost(), port);
     }
 }
@@ -1,45 +1,230 @@
 package com.reactivespring.controller;
 
 
-import com.reactivespring.client.MoviesInfoRestClient;
-import com.reactivespring.client.ReviewsRestClient;
+import com.reactivespring.cache.MovieResponseCache;
+import com.reactivespring.cache.ReviewsFallbackCache;
+import com.reactivespring.client.MoviesInfoClient;
+import com.reactivespring.client.ReviewsClient;
+import com.reactivespring.client.SharedMovieInfoStream;
 import com.reactivespring.domain.Movie;
 import com.reactivespring.domain.MovieInfo;
 import com.reactivespring.domain.Review;
+import com.reactivespring.util.FieldSelection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
+import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/v1/movies")
+@Slf4j
 public class MoviesController {
 
-    private MoviesInfoRestClient moviesInfoRestClient;
-    private ReviewsRestClient reviewsRestClient;
+    private MoviesInfoClient moviesInfoClient;
+    private ReviewsClient reviewsClient;
+    private SharedMovieInfoStream sharedMovieInfoStream;
+    private MovieResponseCache movieResponseCache;
+    private ReviewsFallbackCache reviewsFallbackCache;
+    private MeterRegistry meterRegistry;
 
-    public MoviesController(MoviesInfoRestClient moviesInfoRestClient, ReviewsRestClient reviewsRestClient) {
-        this.moviesInfoRestClient = moviesInfoRestClient;
-        this.reviewsRestClient = reviewsRestClient;
+    @Value("${movies.aggregation.parallel:false}")
+    private boolean parallelAggregation;
+
+    @Value("${movies.degradation.reviews.enabled:false}")
+    private boolean degradeReviews;
+
+    @Value("${movies.degradation.reviews.budget:300ms}")
+    private Duration reviewsBudget;
+
+    public MoviesController(MoviesInfoClient moviesInfoClient, ReviewsClient reviewsClient,
+                            SharedMovieInfoStream sharedMovieInfoStream, MovieResponseCache movieResponseCache,
+                            ReviewsFallbackCache reviewsFallbackCache, MeterRegistry meterRegistry) {
+        this.moviesInfoClient = moviesInfoClient;
+        this.reviewsClient = reviewsClient;
+        this.sharedMovieInfoStream = sharedMovieInfoStream;
+        this.movieResponseCache = movieResponseCache;
+        this.reviewsFallbackCache = reviewsFallbackCache;
+        this.meterRegistry = meterRegistry;
     }
 
     @GetMapping("/{id}")
-    public Mono<Movie> fetchMovieById(@PathVariable("id") String movieId) {
-        return moviesInfoRestClient.fetchMovieInfo(movieId)
-                                   .flatMap(movieInfo -> {
-                                       Mono<List<Review>> reviewsListMono = reviewsRestClient.fetchReviews(movieId)
-                                                                                             .collectList();
-                                       return reviewsListMono.map(reviews -> new Movie(movieInfo, reviews));
-                                   });
+    public Mono<ResponseEntity<DataBuffer>> fetchMovieById(@PathVariable("id") String movieId,
+                                                           @RequestParam(value = "fields", required = false) String fields,
+                                                           ServerHttpResponse response) {
+
+        FieldSelection selection = FieldSelection.parse(fields);
+        // only complete responses are cached, projections are encoded per request but still get an ETag;
+        // a matching If-None-Match is answered with 304 when the ResponseEntity is handled
+        Mono<MovieResponseCache.EncodedMovie> encodedMovieMono = fields == null
+                ? movieResponseCache.get(movieId, aggregateMovie(movieId, selection))
+                : aggregateMovie(movieId, selection).map(movieResponseCache::encode);
+        return encodedMovieMono.map(encodedMovie -> ResponseEntity.ok()
+                                                                  .contentType(MediaType.APPLICATION_JSON)
+                                                                  .eTag(encodedMovie.getEtag())
+                                                                  .body(response.bufferFactory()
+                                                                                .wrap(encodedMovie.getBody())));
+    }
+
+    private Mono<Movie> aggregateMovie(String movieId, FieldSelection selection) {
+
+        Mono<MovieInfo> movieInfoMono = timed(moviesInfoClient.fetchMovieInfo(movieId, selection.movieInfoFields()),
+                                              "movieInfo");
+        // reviews that are not selected are not fetched at all; the reviews part is a Movie without its movieInfo
+        Mono<Movie> reviewsPartMono = selection.includesReviews()
+                ? withinReviewsBudget(movieId, timed(reviewsClient.fetchReviews(movieId, selection.reviewFields())
+                                                                  .collectList(), "reviews"),
+                                      selection.reviewFields() == null)
+                : Mono.just(new Movie(null, Collections.emptyList()));
+
+        if (parallelAggregation) {
+            // zip cancels the reviews call as soon as the movieInfo lookup fails, unless it runs in the background
+            return timed(Mono.zip(movieInfoMono, reviewsPartMono, MoviesController::join), "movie").map(selection::apply);
+        }
+        return timed(movieInfoMono.flatMap(movieInfo -> reviewsPartMono.map(reviewsPart -> join(movieInfo, reviewsPart))),
+                     "movie").map(selection::apply);
+    }
+
+    private static Movie join(MovieInfo movieInfo, Movie reviewsPart) {
+        return new Movie(movieInfo, reviewsPart.getReviewList(), reviewsPart.getReviewsIncomplete());
+    }
+
+    // past the budget the movie goes out with the last complete reviews seen (or none) and is marked incomplete;
+    // the call itself runs on in the background and refreshes that fallback for the next request
+    private Mono<Movie> withinReviewsBudget(String movieId, Mono<List<Review>> reviewsListMono, boolean complete) {
+        if (!degradeReviews) {
+            return reviewsListMono.map(reviews -> new Movie(null, reviews));
+        }
+        return Mono.deferContextual(context -> {
+            Mono<List<Review>> call = reviewsListMono.doOnNext(reviews -> {
+                                                         if (complete) {
+                                                             reviewsFallbackCache.put(movieId, reviews);
+                                                         }
+                                                     })
+                                                     .contextWrite(context)
+                                                     .cache();
+            call.subscribe(reviews -> {
+            }, error -> log.debug("Reviews call for movie {} failed : {}", movieId, error.getMessage()));
+            return call.map(reviews -> new Movie(null, reviews))
+                       .timeout(reviewsBudget, Mono.fromSupplier(() -> degradedReviews(movieId, complete)));
+        });
+    }
+
+    private Movie degradedReviews(String movieId, boolean complete) {
+        Optional<List<Review>> fallback = complete ? reviewsFallbackCache.get(movieId) : Optional.empty();
+        meterRegistry.counter("movies.degraded.responses", "part", "reviews", "fallback",
+                              fallback.isPresent() ? "cached" : "empty")
+                     .increment();
+        return new Movie(null, fallback.orElse(Collections.emptyList()), true);
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Object> fetchMovieStreamById(@PathVariable("id") String movieId) {
+
+        // the movieInfo line goes out first, then each review as it is decoded from the reviews response
+        Mono<MovieInfo> movieInfoMono = timed(moviesInfoClient.fetchMovieInfo(movieId), "movieInfo");
+        Flux<Review> reviewsFlux = reviewsClient.streamReviews(movieId);
+
+        if (parallelAggregation) {
+            // both calls start together, reviews are held back (up to the prefetch) until the movieInfo is written
+            return Flux.mergeSequential(movieInfoMono, reviewsFlux);
+        }
+        return Flux.concat(movieInfoMono, reviewsFlux);
+    }
+
+    @GetMapping
+    public Flux<Movie> fetchMoviesByIds(@RequestParam("ids") List<String> movieIds) {
+        return fetchMovies(movieIds);
+    }
+
+    @PostMapping("/bulk")
+    public Flux<Movie> fetchMoviesByIdsBulk(@RequestBody List<String> movieIds) {
+        return fetchMovies(movieIds);
+    }
+
+    private Flux<Movie> fetchMovies(List<String> movieIds) {
+
+        List<String> distinctMovieIds = movieIds.stream()
+                                                .distinct()
+                                                .collect(Collectors.toList());
+        if (distinctMovieIds.isEmpty()) {
+            return Flux.empty();
+        }
+
+        Mono<Map<String, MovieInfo>> movieInfoByIdMono = timed(moviesInfoClient.fetchMovieInfos(distinctMovieIds)
+                                                                               .collectMap(MovieInfo::getMovieInfoId,
+                                                                                           Function.identity()),
+                                                               "movieInfo");
+
+        if (parallelAggregation) {
+            return Mono.zip(movieInfoByIdMono, timed(reviewsClient.fetchReviews(distinctMovieIds), "reviews"))
+                       .flatMapIterable(tuple -> joinMovies(distinctMovieIds, tuple.getT1(), tuple.getT2()));
+        }
+        return movieInfoByIdMono.flatMapMany(movieInfoById -> {
+            Mono<Map<String, List<Review>>> reviewsByMovieIdMono = movieInfoById.isEmpty()
+                    ? Mono.just(Collections.emptyMap())
+                    : timed(reviewsClient.fetchReviews(List.copyOf(movieInfoById.keySet())), "reviews");
+            return reviewsByMovieIdMono.flatMapIterable(reviewsByMovieId -> joinMovies(distinctMovieIds,
+                                                                                       movieInfoById,
+                                                                                       reviewsByMovieId));
+        });
+    }
+
+    private static List<Movie> joinMovies(List<String> movieIds, Map<String, MovieInfo> movieInfoById, Map<String, List<Review>> reviewsByMovieId) {
+        return movieIds.stream()
+                       .filter(movieInfoById::containsKey)
+                       .map(movieId -> new Movie(movieInfoById.get(movieId),
+                                                 reviewsByMovieId.getOrDefault(movieId, Collections.emptyList())))
+                       .collect(Collectors.toList());
+    }
+
+    private <T> Mono<T> timed(Mono<T> mono, String leg) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono.doFinally(signalType -> sample.stop(Timer.builder("movies.aggregation")
+                                                                 .description("Latency of each leg of the movie aggregation")
+                                                                 .tag("leg", leg)
+                                                                 .tag("mode", parallelAggregation ? "parallel" : "sequential")
+                                                                 .tag("outcome", outcome(signalType))
+                                                                 .publishPercentileHistogram()
+                                                                 .register(meterRegistry)));
+        });
+    }
+
+    private static String outcome(SignalType signalType) {
+        switch (signalType) {
+            case ON_COMPLETE:
+                return "success";
+            case ON_ERROR:
+                return "error";
+            default:
+                return "cancelled";
+        }
     }
 
     @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
     public Flux<MovieInfo> fetchMovieInfos() {
-        return moviesInfoRestClient.fetchMovieInfoStream();
+        return sharedMovieInfoStream.stream();
     }
 }
@@ -1,6 +1,7 @@
 package com.reactivespring.domain;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,11 +12,13 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Validated
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class MovieInfo {
     private String movieInfoId;
     @NotBlank(message = "movieInfo.name must be present")
@@ -27,4 +30,15 @@ public class MovieInfo {
     @NotNull
     private List<@NotBlank(message = "movieInfo.cast must be present") String> cast;
     private LocalDate release_date;
+
+    /**
+     * Copy holding only {@code fields}, the id is always kept as a Mongo projection would.
+     */
+    public MovieInfo project(Set<String> fields) {
+        return new MovieInfo(movieInfoId,
+                             fields.contains("name") ? name : null,
+                             fields.contains("year") ? year : null,
+                             fields.contains("cast") ? cast : null,
+                             fields.contains("release_date") ? release_date : null);
+    }
 }
@@ -0,0 +1,37 @@
+package com.reactivespring.domain;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoEvent {
+
+    public enum Type {
+        ADDED, UPDATED, DELETED
+    }
+
+    private long eventId;
+
+    // start of the upstream process that numbered the event, ids only compare within one epoch
+    private long epoch;
+
+    private Type type;
+
+    private Instant publishedAt;
+
+    @JsonUnwrapped
+    private MovieInfo movieInfo;
+
+    /**
+     * Resume point to send back as {@code Last-Event-ID}, {@code <epoch>:<eventId>}.
+     */
+    public static String position(MovieInfoEvent event) {
+        return event.getEpoch() + ":" + event.getEventId();
+    }
+}
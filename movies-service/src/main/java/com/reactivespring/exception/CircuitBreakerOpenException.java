@@ -0,0 +1,10 @@
+package com.reactivespring.exception;
+
+public class CircuitBreakerOpenException extends RuntimeException{
+    private String message;
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+        this.message = message;
+    }
+}
@@ -0,0 +1,99 @@
+package com.reactivespring.filter;
+
+import com.reactivespring.util.GradientLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sheds load at ingress once the number of requests in flight reaches the current {@link GradientLimit}.
+ * Rejected requests get an immediate 503 with {@code Retry-After}. Actuator endpoints (health checks) and
+ * long-lived streams are never limited and do not feed the latency samples.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+@ConditionalOnProperty(name = "movies.concurrencyLimit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitWebFilter implements WebFilter {
+
+    private final GradientLimit limit;
+    private final String retryAfterSeconds;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    public ConcurrencyLimitWebFilter(@Value("${movies.concurrencyLimit.initialLimit:20}") int initialLimit,
+                                     @Value("${movies.concurrencyLimit.minLimit:5}") int minLimit,
+                                     @Value("${movies.concurrencyLimit.maxLimit:500}") int maxLimit,
+                                     @Value("${movies.concurrencyLimit.smoothing:0.2}") double smoothing,
+                                     @Value("${movies.concurrencyLimit.rttTolerance:1.5}") double rttTolerance,
+                                     @Value("${movies.concurrencyLimit.longWindow:600}") int longWindow,
+                                     @Value("${movies.concurrencyLimit.retryAfter:1s}") Duration retryAfter,
+                                     MeterRegistry meterRegistry) {
+        this.limit = new GradientLimit(initialLimit, minLimit, maxLimit, smoothing, rttTolerance, longWindow);
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+
+        this.rejected = Counter.builder("movies.concurrency.rejected")
+                               .description("Requests rejected because the concurrency limit was reached")
+                               .register(meterRegistry);
+        Gauge.builder("movies.concurrency.limit", limit, GradientLimit::getLimit)
+             .description("Current adaptive concurrency limit")
+             .register(meterRegistry);
+        Gauge.builder("movies.concurrency.inflight", inFlight, AtomicInteger::get)
+             .description("Limited requests currently in flight")
+             .register(meterRegistry);
+        log.info("Concurrency limit : initial {}, min {}, max {}", initialLimit, minLimit, maxLimit);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (isExempt(exchange)) {
+            return chain.filter(exchange);
+        }
+
+        int current = inFlight.incrementAndGet();
+        if (current > limit.getLimit()) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders()
+                    .set(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            return response.setComplete();
+        }
+
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                    .doFinally(signalType -> {
+                        inFlight.decrementAndGet();
+                        // a cancelled request says nothing about how long the work takes
+                        if (signalType != SignalType.CANCEL) {
+                            limit.onSample(System.nanoTime() - start, current);
+                        }
+                    });
+    }
+
+    private static boolean isExempt(ServerWebExchange exchange) {
+        String path = exchange.getRequest()
+                              .getPath()
+                              .value();
+        return path.startsWith("/actuator") || path.endsWith("/stream");
+    }
+}
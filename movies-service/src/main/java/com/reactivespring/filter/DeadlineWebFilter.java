@@ -0,0 +1,54 @@
+package com.reactivespring.filter;
+
+import com.reactivespring.util.Deadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Starts the request deadline at ingress: the caller's {@link Deadline#HEADER} budget capped at
+ * {@code movies.deadline.max}, or {@code movies.deadline.default} when the caller did not send one.
+ * Long-lived streams are left alone.
+ */
+@Component
+public class DeadlineWebFilter implements WebFilter {
+
+    private final Duration defaultBudget;
+    private final Duration maxBudget;
+
+    public DeadlineWebFilter(@Value("${movies.deadline.default:10s}") Duration defaultBudget,
+                             @Value("${movies.deadline.max:30s}") Duration maxBudget) {
+        this.defaultBudget = defaultBudget;
+        this.maxBudget = maxBudget;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (exchange.getRequest()
+                    .getPath()
+                    .value()
+                    .endsWith("/stream")) {
+            return chain.filter(exchange);
+        }
+
+        Duration budget = Deadline.parseHeader(exchange.getRequest()
+                                                       .getHeaders()
+                                                       .getFirst(Deadline.HEADER))
+                                  .map(requested -> requested.compareTo(maxBudget) < 0 ? requested : maxBudget)
+                                  .orElse(defaultBudget);
+        Deadline deadline = Deadline.after(budget);
+
+        return chain.filter(exchange)
+                    .timeout(budget,
+                             Mono.error(() -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                                                                          "Request deadline exceeded")))
+                    .contextWrite(deadline::putIn);
+    }
+}
@@ -1,5 +1,8 @@
 package com.reactivespring.globalerrorhandler;
 
+import com.reactivespring.exception.CircuitBreakerOpenException;
+import com.reactivespring.exception.DeadlineExceededException;
+import com.reactivespring.exception.InvalidFieldsException;
 import com.reactivespring.exception.MoviesInfoClientException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -18,6 +21,27 @@ public class GlobalErrorHandler {
                              .body(exception.getMessage());
     }
 
+    @ExceptionHandler(CircuitBreakerOpenException.class)
+    public ResponseEntity<String> handleCircuitBreakerOpenException(CircuitBreakerOpenException exception) {
+        log.error("Exception caught in handleCircuitBreakerOpenException : {}", exception.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                             .body(exception.getMessage());
+    }
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<String> handleDeadlineExceededException(DeadlineExceededException exception) {
+        log.error("Exception caught in handleDeadlineExceededException : {}", exception.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                             .body(exception.getMessage());
+    }
+
+    @ExceptionHandler(InvalidFieldsException.class)
+    public ResponseEntity<String> handleInvalidFieldsException(InvalidFieldsException exception) {
+        log.error("Exception caught in handleInvalidFieldsException : {}", exception.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                             .body(exception.getMessage());
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<String> handleRunTimeException(RuntimeException exception) {
         log.error("Exception caught in handleRunTimeException : {}", exception.getMessage());
@@ -0,0 +1,15 @@
+package com.reactivespring.tracing;
+
+import lombok.Value;
+
+@Value
+public class TraceEvent {
+
+    String traceId;
+    String operation;
+    String signal;
+    long elapsedMicros;
+    long elements;
+    String thread;
+    String error;
+}
@@ -0,0 +1,140 @@
+package com.reactivespring.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Collects single-key lookups made within {@code window} (or until {@code maxBatchSize} lookups) into one bulk call
+ * and hands every caller its own value. Callers asking for the same key share it, a key missing from the bulk
+ * answer completes empty. When a batch fails with an error {@code isolateOn} accepts, each of its keys is retried on
+ * its own, so one bad key fails only its callers; any other error fails the whole batch.
+ * <p>
+ * The bulk call runs outside the callers' subscriptions and does not see their Reactor context. Nothing is buffered
+ * and no timer runs until the first lookup.
+ */
+@Slf4j
+public class BatchLoader<K, V> {
+
+    private final Function<List<K>, Mono<Map<K, V>>> bulkLoad;
+    private final Predicate<Throwable> isolateOn;
+    private final Duration window;
+    private final int maxBatchSize;
+    // emissions are serialized by locking the sink, so concurrent callers wait briefly instead of spinning
+    private final Sinks.Many<Pending<K, V>> pending = Sinks.many()
+                                                           .unicast()
+                                                           .onBackpressureBuffer();
+    private boolean started;
+
+    private final DistributionSummary batchSize;
+    private final Counter isolatedBatches;
+
+    public BatchLoader(String client, Function<List<K>, Mono<Map<K, V>>> bulkLoad, Predicate<Throwable> isolateOn,
+                       Duration window, int maxBatchSize, MeterRegistry meterRegistry) {
+        this.bulkLoad = bulkLoad;
+        this.isolateOn = isolateOn;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+
+        this.batchSize = DistributionSummary.builder("restclient.batch.size")
+                                            .description("Distinct keys sent in one batched bulk call")
+                                            .tag("client", client)
+                                            .register(meterRegistry);
+        this.isolatedBatches = Counter.builder("restclient.batch.isolated")
+                                      .description("Failed batches whose keys were retried one by one")
+                                      .tag("client", client)
+                                      .register(meterRegistry);
+    }
+
+    public Mono<V> load(K key) {
+        return Mono.defer(() -> {
+            Sinks.One<V> result = Sinks.one();
+            Sinks.EmitResult emitResult;
+            synchronized (pending) {
+                if (!started) {
+                    started = true;
+                    pending.asFlux()
+                           .bufferTimeout(maxBatchSize, window)
+                           .subscribe(this::dispatch);
+                }
+                emitResult = pending.tryEmitNext(new Pending<>(key, result));
+            }
+            if (emitResult.isFailure()) {
+                return Mono.error(new IllegalStateException("Batch lookup of " + key + " was not queued : " + emitResult));
+            }
+            return result.asMono();
+        });
+    }
+
+    // must not throw, an error would end the buffering subscription and strand every later lookup
+    private void dispatch(List<Pending<K, V>> batch) {
+        Map<K, List<Sinks.One<V>>> waiting = new LinkedHashMap<>();
+        batch.forEach(request -> waiting.computeIfAbsent(request.key, key -> new ArrayList<>())
+                                        .add(request.result));
+        try {
+            batchSize.record(waiting.size());
+            bulkLoad.apply(List.copyOf(waiting.keySet()))
+                    .defaultIfEmpty(Map.of())
+                    .subscribe(values -> waiting.forEach((key, results) -> complete(results, values.get(key))),
+                               error -> {
+                                   if (waiting.size() > 1 && isolateOn.test(error)) {
+                                       isolatedBatches.increment();
+                                       waiting.forEach(this::dispatchAlone);
+                                   } else {
+                                       waiting.values()
+                                              .forEach(results -> fail(results, error));
+                                   }
+                               });
+        } catch (RuntimeException ex) {
+            log.warn("Dispatching a batch of {} keys failed : {}", waiting.size(), ex.getMessage());
+            waiting.values()
+                   .forEach(results -> fail(results, ex));
+        }
+    }
+
+    private void dispatchAlone(K key, List<Sinks.One<V>> results) {
+        try {
+            bulkLoad.apply(List.of(key))
+                    .defaultIfEmpty(Map.of())
+                    .subscribe(values -> complete(results, values.get(key)), error -> fail(results, error));
+        } catch (RuntimeException ex) {
+            fail(results, ex);
+        }
+    }
+
+    private static <V> void complete(List<Sinks.One<V>> results, V value) {
+        results.forEach(result -> {
+            if (value == null) {
+                result.tryEmitEmpty();
+            } else {
+                result.tryEmitValue(value);
+            }
+        });
+    }
+
+    private static <V> void fail(List<Sinks.One<V>> results, Throwable error) {
+        results.forEach(result -> result.tryEmitError(error));
+    }
+
+    private static final class Pending<K, V> {
+
+        private final K key;
+        private final Sinks.One<V> result;
+
+        private Pending(K key, Sinks.One<V> result) {
+            this.key = key;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.reactivespring.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Per-backend settings for collecting concurrent single-key lookups into bulk calls, see {@link BatchLoader}.
+ */
+public class BatchPolicy {
+
+    private final String client;
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final MeterRegistry meterRegistry;
+
+    public BatchPolicy(String client, boolean enabled, Duration window, int maxBatchSize, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <K, V> BatchLoader<K, V> loader(Function<List<K>, Mono<Map<K, V>>> bulkLoad,
+                                           Predicate<Throwable> isolateOn) {
+        return new BatchLoader<>(client, bulkLoad, isolateOn, window, maxBatchSize, meterRegistry);
+    }
+}
@@ -0,0 +1,129 @@
+package com.reactivespring.util;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker. While OPEN every call is rejected; once {@code openDuration} has
+ * passed up to {@code halfOpenProbes} calls are let through and the breaker closes again only if all of
+ * them succeed. Outcomes are reported with the {@link Permit} the call was admitted with, so a call that was
+ * admitted before the breaker went half-open never counts as a probe.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Admission of one call. A probe belongs to the half-open period it was admitted in and only counts there.
+     */
+    public static final class Permit {
+
+        private static final Permit REGULAR = new Permit(false, -1);
+
+        private final boolean probe;
+        private final long halfOpenPeriod;
+
+        private Permit(boolean probe, long halfOpenPeriod) {
+            this.probe = probe;
+            this.halfOpenPeriod = halfOpenPeriod;
+        }
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private long halfOpenPeriod;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration, int halfOpenProbes) {
+        this(failureThreshold, openDuration, halfOpenProbes, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, int halfOpenProbes, LongSupplier nanoClock) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Admits a call, or returns {@code null} when the breaker rejects it.
+     */
+    @Nullable
+    public synchronized Permit tryAcquirePermission() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openDurationNanos) {
+            state = State.HALF_OPEN;
+            halfOpenPeriod++;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        switch (state) {
+            case CLOSED:
+                return Permit.REGULAR;
+            case HALF_OPEN:
+                if (probesInFlight + probeSuccesses < halfOpenProbes) {
+                    probesInFlight++;
+                    return new Permit(true, halfOpenPeriod);
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    public synchronized void onSuccess(Permit permit) {
+        if (isCurrentProbe(permit)) {
+            probesInFlight--;
+            if (++probeSuccesses >= halfOpenProbes) {
+                state = State.CLOSED;
+            }
+        }
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void onFailure(Permit permit) {
+        if (state == State.HALF_OPEN) {
+            // a late failure of a call from before the open period says nothing about the recovery
+            if (isCurrentProbe(permit)) {
+                open();
+            }
+            return;
+        }
+        if (++consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Gives back a half-open probe slot when a permitted call was cancelled before it finished.
+     */
+    public synchronized void onCancel(Permit permit) {
+        if (isCurrentProbe(permit) && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private boolean isCurrentProbe(Permit permit) {
+        return state == State.HALF_OPEN && permit.probe && permit.halfOpenPeriod == halfOpenPeriod;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+        consecutiveFailures = 0;
+    }
+}
@@ -0,0 +1,125 @@
+package com.reactivespring.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation of one downstream client, usable by any client built on {@code WebClient}:
+ * <ul>
+ *     <li>{@link #filter()} times every HTTP attempt up to the response headers, tagged by status class</li>
+ *     <li>{@link #timed} times a whole logical call including retries and hedges, counts its errors and tracks
+ *     how many calls are in flight</li>
+ * </ul>
+ * Retries are counted by the client's {@link RetryPolicy}.
+ */
+public class ClientMetrics {
+
+    private final String client;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ClientMetrics(String client, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("restclient.inflight", inFlight, AtomicInteger::get)
+             .description("Logical calls currently waiting on the downstream service")
+             .tag("client", client)
+             .register(meterRegistry);
+    }
+
+    public ExchangeFilterFunction filter() {
+        return (request, next) -> Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return next.exchange(request)
+                       .doOnSuccess(response -> recordRequest(sample, outcome(response.rawStatusCode()),
+                                                              response.rawStatusCode() / 100 + "xx"))
+                       .doOnError(error -> recordRequest(sample, "error", "none"))
+                       .doOnCancel(() -> recordRequest(sample, "cancelled", "none"));
+        });
+    }
+
+    public <T> Mono<T> timed(String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            inFlight.incrementAndGet();
+            return call.doOnError(error -> countError(operation, error))
+                       .doFinally(signalType -> {
+                           inFlight.decrementAndGet();
+                           recordCall(sample, operation, signalType);
+                       });
+        });
+    }
+
+    public <T> Flux<T> timed(String operation, Flux<T> call) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            inFlight.incrementAndGet();
+            return call.doOnError(error -> countError(operation, error))
+                       .doFinally(signalType -> {
+                           inFlight.decrementAndGet();
+                           recordCall(sample, operation, signalType);
+                       });
+        });
+    }
+
+    private void recordRequest(Timer.Sample sample, String outcome, String status) {
+        sample.stop(Timer.builder("restclient.requests")
+                         .description("Latency of single HTTP attempts until the response headers arrive")
+                         .tag("client", client)
+                         .tag("outcome", outcome)
+                         .tag("status", status)
+                         .publishPercentileHistogram()
+                         .register(meterRegistry));
+    }
+
+    private void recordCall(Timer.Sample sample, String operation, SignalType signalType) {
+        sample.stop(Timer.builder("restclient.calls")
+                         .description("Latency of logical client calls including retries and hedges")
+                         .tag("client", client)
+                         .tag("operation", operation)
+                         .tag("outcome", outcome(signalType))
+                         .publishPercentileHistogram()
+                         .register(meterRegistry));
+    }
+
+    private void countError(String operation, Throwable error) {
+        Counter.builder("restclient.errors")
+               .description("Logical client calls that ended in an error")
+               .tag("client", client)
+               .tag("operation", operation)
+               .tag("exception", error.getClass()
+                                      .getSimpleName())
+               .register(meterRegistry)
+               .increment();
+    }
+
+    private static String outcome(int statusCode) {
+        if (statusCode >= 500) {
+            return "server_error";
+        }
+        if (statusCode >= 400) {
+            return "client_error";
+        }
+        return "success";
+    }
+
+    private static String outcome(SignalType signalType) {
+        switch (signalType) {
+            case ON_COMPLETE:
+                return "success";
+            case ON_ERROR:
+                return "error";
+            default:
+                return "cancelled";
+        }
+    }
+}
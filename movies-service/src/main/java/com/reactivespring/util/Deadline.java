@@ -0,0 +1,128 @@
+package com.reactivespring.util;
+
+import com.reactivespring.exception.DeadlineExceededException;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Point in time by which an inbound request has to be answered. It travels in the Reactor context and is sent
+ * downstream as the remaining budget in milliseconds, which keeps it independent of clock skew between hosts.
+ */
+public final class Deadline {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    private static final String CONTEXT_KEY = Deadline.class.getName();
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    public static Optional<Deadline> from(ContextView context) {
+        return context.getOrEmpty(CONTEXT_KEY);
+    }
+
+    public static Optional<Duration> parseHeader(@Nullable String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        try {
+            long millis = Long.parseLong(value.trim());
+            return millis >= 0 ? Optional.of(Duration.ofMillis(millis)) : Optional.empty();
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    public Context putIn(Context context) {
+        return context.put(CONTEXT_KEY, this);
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    private boolean isBefore(Deadline other) {
+        return deadlineNanos - other.deadlineNanos < 0;
+    }
+
+    /**
+     * Bounds a single call by its own timeout or by the request deadline, whichever comes first. Running out of
+     * the call timeout signals {@code callTimeoutError}, running out of the request deadline signals
+     * {@link DeadlineExceededException}.
+     */
+    public static <T> Mono<T> bound(Mono<T> mono, Duration callTimeout, Supplier<? extends Throwable> callTimeoutError) {
+        return Mono.deferContextual(context -> {
+            Deadline callDeadline = Deadline.after(callTimeout);
+            Optional<Deadline> requestDeadline = from(context).filter(deadline -> deadline.isBefore(callDeadline));
+            Supplier<? extends Throwable> error = requestDeadline.isPresent() ? Deadline::exceeded : callTimeoutError;
+            Deadline limit = requestDeadline.orElse(callDeadline);
+            if (limit.isExpired()) {
+                return Mono.error(error);
+            }
+            return mono.timeout(limit.remaining(), Mono.error(error));
+        });
+    }
+
+    public static <T> Flux<T> bound(Flux<T> flux, Duration callTimeout, Supplier<? extends Throwable> callTimeoutError) {
+        return Flux.deferContextual(context -> {
+            Deadline callDeadline = Deadline.after(callTimeout);
+            Optional<Deadline> requestDeadline = from(context).filter(deadline -> deadline.isBefore(callDeadline));
+            Supplier<? extends Throwable> error = requestDeadline.isPresent() ? Deadline::exceeded : callTimeoutError;
+            Deadline limit = requestDeadline.orElse(callDeadline);
+            if (limit.isExpired()) {
+                return Flux.error(error);
+            }
+            // Flux.timeout restarts on every element, so each next timeout only gets what is left of the limit
+            return flux.timeout(Mono.delay(limit.remaining()),
+                                element -> Mono.delay(limit.remaining()),
+                                Flux.error(error));
+        });
+    }
+
+    /**
+     * Bounds a stream by the gap before each element instead of by its total length, so a long stream that keeps
+     * moving is never cut off. Every gap is still capped by what is left of the request deadline. Going idle
+     * signals {@code idleTimeoutError}, running out of the request deadline signals
+     * {@link DeadlineExceededException}.
+     */
+    public static <T> Flux<T> idle(Flux<T> flux, Duration idleTimeout, Supplier<? extends Throwable> idleTimeoutError) {
+        return Flux.deferContextual(context -> {
+            Optional<Deadline> requestDeadline = from(context);
+            if (requestDeadline.filter(Deadline::isExpired)
+                               .isPresent()) {
+                return Flux.error(Deadline::exceeded);
+            }
+            Supplier<Mono<Long>> gap = () -> Mono.delay(requestDeadline.map(Deadline::remaining)
+                                                                       .filter(remaining -> remaining.compareTo(idleTimeout) < 0)
+                                                                       .orElse(idleTimeout));
+            return flux.timeout(Mono.defer(gap),
+                                element -> gap.get(),
+                                Flux.defer(() -> Flux.<T>error(requestDeadline.filter(Deadline::isExpired)
+                                                                              .isPresent()
+                                        ? exceeded()
+                                        : idleTimeoutError.get())));
+        });
+    }
+
+    private static DeadlineExceededException exceeded() {
+        return new DeadlineExceededException("Request deadline exceeded");
+    }
+}
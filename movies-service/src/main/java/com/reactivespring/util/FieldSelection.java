@@ -0,0 +1,108 @@
+package com.reactivespring.util;
+
+import com.reactivespring.domain.Movie;
+import com.reactivespring.exception.InvalidFieldsException;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The {@code fields} parameter of the movie endpoints, e.g. {@code movieInfo.name,movieInfo.year,reviewList.rating}.
+ * A bare {@code movieInfo} or {@code reviewList} selects the whole part, a part that is not named is left out of the
+ * response. The movie info is still looked up by id when it is left out, so an unknown movie stays a 404.
+ */
+public class FieldSelection {
+
+    public static final FieldSelection ALL = new FieldSelection(true, null, true, null);
+
+    private static final String MOVIE_INFO = "movieInfo";
+    private static final String REVIEW_LIST = "reviewList";
+    private static final Set<String> MOVIE_INFO_FIELDS = Set.of("movieInfoId", "name", "year", "cast", "release_date");
+    private static final Set<String> REVIEW_FIELDS = Set.of("reviewId", "movieInfoId", "comment", "rating");
+
+    private final boolean movieInfo;
+    private final Set<String> movieInfoFields;
+    private final boolean reviews;
+    private final Set<String> reviewFields;
+
+    private FieldSelection(boolean movieInfo, Set<String> movieInfoFields, boolean reviews, Set<String> reviewFields) {
+        this.movieInfo = movieInfo;
+        this.movieInfoFields = movieInfoFields;
+        this.reviews = reviews;
+        this.reviewFields = reviewFields;
+    }
+
+    public static FieldSelection parse(@Nullable String fields) {
+        if (fields == null) {
+            return ALL;
+        }
+
+        boolean movieInfo = false;
+        boolean wholeMovieInfo = false;
+        Set<String> movieInfoFields = new LinkedHashSet<>();
+        boolean reviews = false;
+        boolean wholeReviews = false;
+        Set<String> reviewFields = new LinkedHashSet<>();
+        List<String> unknownFields = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int dot = trimmed.indexOf('.');
+            String part = dot < 0 ? trimmed : trimmed.substring(0, dot);
+            String name = dot < 0 ? null : trimmed.substring(dot + 1);
+            if (MOVIE_INFO.equals(part) && (name == null || MOVIE_INFO_FIELDS.contains(name))) {
+                movieInfo = true;
+                wholeMovieInfo |= name == null;
+                if (name != null) {
+                    movieInfoFields.add(name);
+                }
+            } else if (REVIEW_LIST.equals(part) && (name == null || REVIEW_FIELDS.contains(name))) {
+                reviews = true;
+                wholeReviews |= name == null;
+                if (name != null) {
+                    reviewFields.add(name);
+                }
+            } else {
+                unknownFields.add(trimmed);
+            }
+        }
+        if (!unknownFields.isEmpty()) {
+            throw new InvalidFieldsException("Unknown movie fields : " + unknownFields);
+        }
+
+        return new FieldSelection(movieInfo,
+                                  movieInfo ? (wholeMovieInfo ? null : movieInfoFields) : Set.of("movieInfoId"),
+                                  reviews,
+                                  wholeReviews ? null : reviewFields);
+    }
+
+    /**
+     * Movie info fields to fetch, {@code null} for all of them.
+     */
+    @Nullable
+    public Set<String> movieInfoFields() {
+        return movieInfoFields;
+    }
+
+    public boolean includesReviews() {
+        return reviews;
+    }
+
+    /**
+     * Review fields to fetch, {@code null} for all of them.
+     */
+    @Nullable
+    public Set<String> reviewFields() {
+        return reviewFields;
+    }
+
+    public Movie apply(Movie movie) {
+        return new Movie(movieInfo ? movie.getMovieInfo() : null, reviews ? movie.getReviewList() : null,
+                         reviews ? movie.getReviewsIncomplete() : null);
+    }
+}
@@ -0,0 +1,55 @@
+package com.reactivespring.util;
+
+/**
+ * Gradient-style adaptive concurrency limit. A long-term moving average of the round trip time stands in for
+ * the no-load latency; when recent samples run slower than that, the gradient drops below one and the limit
+ * shrinks, when they match it the limit grows by a queue allowance of {@code sqrt(limit)}. The limit only
+ * grows while the service is actually using at least half of it.
+ */
+public class GradientLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final double longWindowFactor;
+
+    private double limit;
+    private double longRtt;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, double rttTolerance,
+                         int longWindow) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.longWindowFactor = 2.0 / (longWindow + 1);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized void onSample(long rttNanos, int inFlight) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        double shortRtt = rttNanos;
+        longRtt = longRtt == 0 ? shortRtt : longRtt + longWindowFactor * (shortRtt - longRtt);
+
+        // after a sustained slowdown let the baseline catch up, otherwise the limit stays pinned at the minimum
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        if (inFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
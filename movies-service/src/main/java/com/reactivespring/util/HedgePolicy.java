@@ -0,0 +1,126 @@
+package com.reactivespring.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hedged requests for idempotent GETs: if the first request has not answered after the tracked latency
+ * percentile, an identical second request is sent and whichever signals first wins, the other one is
+ * cancelled. Hedges are paid for from a {@link RetryBudget}, so they cannot multiply load on a backend that
+ * is slow across the board.
+ */
+public class HedgePolicy {
+
+    private final boolean enabled;
+    private final Duration minDelay;
+    private final Duration maxDelay;
+    private final LatencyTracker latencyTracker;
+    private final RetryBudget hedgeBudget;
+
+    private final Counter hedgesFired;
+    private final Counter hedgesWon;
+
+    public HedgePolicy(String client, boolean enabled, Duration minDelay, Duration maxDelay, LatencyTracker latencyTracker,
+                       RetryBudget hedgeBudget, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.latencyTracker = latencyTracker;
+        this.hedgeBudget = hedgeBudget;
+
+        this.hedgesFired = Counter.builder("restclient.hedges.fired")
+                                  .description("Hedged requests sent because the first request was slow")
+                                  .tag("client", client)
+                                  .register(meterRegistry);
+        this.hedgesWon = Counter.builder("restclient.hedges.won")
+                                .description("Hedged requests that answered before the first request")
+                                .tag("client", client)
+                                .register(meterRegistry);
+        Gauge.builder("restclient.hedge.delay", this, policy -> policy.hedgeDelay()
+                                                                      .toNanos() / 1e9)
+             .description("Current delay before a hedged request is sent, in seconds")
+             .tag("client", client)
+             .register(meterRegistry);
+    }
+
+    public <T> Mono<T> apply(Mono<T> request) {
+        if (!enabled) {
+            return request;
+        }
+        return Mono.defer(() -> {
+            hedgeBudget.deposit();
+            Mono<T> hedge = Mono.delay(hedgeDelay())
+                                .flatMap(tick -> {
+                                    if (!hedgeBudget.tryWithdraw()) {
+                                        return Mono.never();
+                                    }
+                                    hedgesFired.increment();
+                                    return tracked(request).doOnNext(value -> hedgesWon.increment());
+                                });
+            return Mono.firstWithSignal(tracked(request), hedge);
+        });
+    }
+
+    public <T> Flux<T> apply(Flux<T> request) {
+        if (!enabled) {
+            return request;
+        }
+        return Flux.defer(() -> {
+            hedgeBudget.deposit();
+            Flux<T> hedge = Mono.delay(hedgeDelay())
+                                .flatMapMany(tick -> {
+                                    if (!hedgeBudget.tryWithdraw()) {
+                                        return Flux.never();
+                                    }
+                                    hedgesFired.increment();
+                                    return onFirstSignal(tracked(request), hedgesWon::increment);
+                                });
+            return Flux.firstWithSignal(tracked(request), hedge);
+        });
+    }
+
+    private Duration hedgeDelay() {
+        long percentileNanos = latencyTracker.percentileNanos();
+        if (percentileNanos < 0) {
+            return maxDelay;
+        }
+        Duration delay = Duration.ofNanos(percentileNanos);
+        if (delay.compareTo(minDelay) < 0) {
+            return minDelay;
+        }
+        return delay.compareTo(maxDelay) > 0 ? maxDelay : delay;
+    }
+
+    private <T> Mono<T> tracked(Mono<T> request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return request.doOnSuccess(value -> latencyTracker.record(System.nanoTime() - start));
+        });
+    }
+
+    private <T> Flux<T> tracked(Flux<T> request) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return onFirstSignal(request, () -> latencyTracker.record(System.nanoTime() - start));
+        });
+    }
+
+    private static <T> Flux<T> onFirstSignal(Flux<T> flux, Runnable action) {
+        return Flux.defer(() -> {
+            AtomicBoolean signalled = new AtomicBoolean();
+            Runnable once = () -> {
+                if (signalled.compareAndSet(false, true)) {
+                    action.run();
+                }
+            };
+            return flux.doOnNext(value -> once.run())
+                       .doOnComplete(once);
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package com.reactivespring.util;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of the most recent latencies. The percentile is recomputed every {@code recomputeEvery}
+ * samples, so reading it on the request path is just a field read.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private final double percentile;
+    private final int recomputeEvery;
+
+    private int next;
+    private int count;
+    private int sinceRecompute;
+    private long percentileNanos = -1;
+
+    public LatencyTracker(int windowSize, double percentile, int recomputeEvery) {
+        this.samples = new long[windowSize];
+        this.percentile = percentile;
+        this.recomputeEvery = recomputeEvery;
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        if (++sinceRecompute >= recomputeEvery) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            percentileNanos = sorted[Math.max(0, Math.min(index, count - 1))];
+        }
+    }
+
+    /**
+     * @return the configured percentile in nanoseconds, or -1 until enough samples have been recorded
+     */
+    public synchronized long percentileNanos() {
+        return percentileNanos;
+    }
+}
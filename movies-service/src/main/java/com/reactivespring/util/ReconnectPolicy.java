@@ -0,0 +1,66 @@
+package com.reactivespring.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * Keeps a long-lived event stream connected. Whenever the stream fails with a resumable error or simply ends, it
+ * is subscribed again after an exponential backoff that starts over as soon as events flow again. Unlike
+ * {@link RetryPolicy} there is no attempt limit, no retry budget and no circuit breaker: a stream that stays open
+ * for hours says nothing about the health of single calls, and its reconnects must not starve theirs.
+ */
+@Slf4j
+public class ReconnectPolicy {
+
+    private final String stream;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+    private final Predicate<Throwable> resumable;
+
+    private final Counter reconnects;
+
+    public ReconnectPolicy(String stream, Duration minBackoff, Duration maxBackoff, Predicate<Throwable> resumable,
+                           MeterRegistry meterRegistry) {
+        this.stream = stream;
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+        this.resumable = resumable;
+
+        this.reconnects = Counter.builder("restclient.stream.reconnects")
+                                 .description("Event stream connections opened again after a failure or an end")
+                                 .tag("stream", stream)
+                                 .register(meterRegistry);
+    }
+
+    /**
+     * Subscribes to {@code connection} again and again; it should be deferred so that every attempt can pick up
+     * where the previous one left off.
+     */
+    public <T> Flux<T> apply(Flux<T> connection) {
+        return connection.concatWith(Flux.error(StreamEndedException::new))
+                         .retryWhen(Retry.backoff(Long.MAX_VALUE, minBackoff)
+                                         .maxBackoff(maxBackoff)
+                                         .transientErrors(true)
+                                         .filter(ex -> ex instanceof StreamEndedException || resumable.test(ex))
+                                         .doBeforeRetry(retrySignal -> {
+                                             log.warn("Reconnecting {} stream : {}", stream,
+                                                      retrySignal.failure()
+                                                                 .getMessage());
+                                             reconnects.increment();
+                                         }));
+    }
+
+    // turns a normal end into a resumable failure, the server closing the stream is no reason to stop following it
+    private static class StreamEndedException extends RuntimeException {
+
+        StreamEndedException() {
+            super("Stream ended", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.reactivespring.util;
+
+/**
+ * Token bucket shared by all calls of one client. Every call deposits {@code tokenRatio} tokens and every
+ * retry withdraws a whole token, so retries stay at roughly {@code tokenRatio} of the request rate (plus a
+ * burst of {@code maxTokens}) no matter how many callers are failing at the same time.
+ */
+public class RetryBudget {
+
+    private final double maxTokens;
+    private final double tokenRatio;
+    private double tokens;
+
+    public RetryBudget(double maxTokens, double tokenRatio) {
+        this.maxTokens = maxTokens;
+        this.tokenRatio = tokenRatio;
+        this.tokens = maxTokens;
+    }
+
+    public synchronized void deposit() {
+        tokens = Math.min(maxTokens, tokens + tokenRatio);
+    }
+
+    public synchronized boolean tryWithdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public synchronized double availableTokens() {
+        return tokens;
+    }
+}
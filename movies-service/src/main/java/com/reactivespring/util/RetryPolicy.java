@@ -0,0 +1,194 @@
+package com.reactivespring.util;
+
+import com.reactivespring.exception.CircuitBreakerOpenException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Retry behaviour of one downstream client: exponential backoff with jitter, a {@link RetryBudget} shared by
+ * all calls of the client and a {@link CircuitBreaker} guarding every attempt.
+ */
+@Slf4j
+public class RetryPolicy {
+
+    private final String client;
+    private final long maxRetries;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+    private final double jitter;
+    private final Predicate<Throwable> retryable;
+    private final RetryBudget retryBudget;
+    private final CircuitBreaker circuitBreaker;
+
+    private final Counter retries;
+    private final Counter retriesDenied;
+    private final Counter callsRejected;
+
+    public RetryPolicy(String client, long maxRetries, Duration minBackoff, Duration maxBackoff, double jitter,
+                       Predicate<Throwable> retryable, RetryBudget retryBudget, CircuitBreaker circuitBreaker,
+                       MeterRegistry meterRegistry) {
+        this.client = client;
+        this.maxRetries = maxRetries;
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+        this.jitter = jitter;
+        this.retryable = retryable;
+        this.retryBudget = retryBudget;
+        this.circuitBreaker = circuitBreaker;
+
+        this.retries = Counter.builder("restclient.retries")
+                              .description("Retries issued after a failed attempt")
+                              .tag("client", client)
+                              .register(meterRegistry);
+        this.retriesDenied = Counter.builder("restclient.retries.denied")
+                                    .description("Retries skipped because the retry budget was empty")
+                                    .tag("client", client)
+                                    .register(meterRegistry);
+        this.callsRejected = Counter.builder("restclient.circuitbreaker.rejected")
+                                    .description("Attempts failed fast because the circuit breaker was open")
+                                    .tag("client", client)
+                                    .register(meterRegistry);
+        Gauge.builder("restclient.circuitbreaker.state", circuitBreaker, breaker -> breaker.getState()
+                                                                                     .ordinal())
+             .description("Circuit breaker state : 0 closed, 1 open, 2 half-open")
+             .tag("client", client)
+             .register(meterRegistry);
+        Gauge.builder("restclient.retry.budget", retryBudget, RetryBudget::availableTokens)
+             .description("Retry tokens currently available")
+             .tag("client", client)
+             .register(meterRegistry);
+    }
+
+    public <T> Mono<T> apply(Mono<T> call) {
+        return Mono.defer(() -> {
+            retryBudget.deposit();
+            return guarded(call).retryWhen(retrySpec());
+        });
+    }
+
+    /**
+     * Like {@link #apply(Mono)} for a stream that ends within a timeout. A stream's permit is settled by its first
+     * signal, so a stream that can stay quiet for long, like an event stream, would hold on to it, and as a
+     * half-open probe keep the circuit from closing; such streams follow {@link ReconnectPolicy} instead.
+     */
+    public <T> Flux<T> apply(Flux<T> call) {
+        return Flux.defer(() -> {
+            retryBudget.deposit();
+            return guarded(call).retryWhen(retrySpec());
+        });
+    }
+
+    /**
+     * Like {@link #apply(Flux)}, but only attempts that have not emitted anything are retried. Meant for streams
+     * whose elements go out as they arrive, where a fresh attempt would repeat what was already sent. Like
+     * {@link #apply(Flux)} it expects the stream to be bounded, here by the gap between elements.
+     */
+    public <T> Flux<T> applyUntilFirst(Flux<T> call) {
+        return Flux.defer(() -> {
+            retryBudget.deposit();
+            AtomicBoolean emitted = new AtomicBoolean();
+            return guarded(call).doOnNext(value -> emitted.set(true))
+                                .retryWhen(retrySpec(ex -> !emitted.get()));
+        });
+    }
+
+    private <T> Mono<T> guarded(Mono<T> attempt) {
+        return Mono.defer(() -> {
+            CircuitBreaker.Permit permit = acquirePermission();
+            if (permit == null) {
+                return Mono.error(circuitOpen());
+            }
+            return attempt.doOnSuccess(value -> circuitBreaker.onSuccess(permit))
+                          .doOnError(ex -> recordFailure(permit, ex))
+                          .doOnCancel(() -> circuitBreaker.onCancel(permit));
+        });
+    }
+
+    private <T> Flux<T> guarded(Flux<T> attempt) {
+        return Flux.defer(() -> {
+            CircuitBreaker.Permit permit = acquirePermission();
+            if (permit == null) {
+                return Flux.error(circuitOpen());
+            }
+            // a stream counts as healthy as soon as it delivers its first element, so a probe permit is handed back
+            // while the stream goes on
+            AtomicBoolean settled = new AtomicBoolean();
+            return attempt.doOnNext(value -> {
+                              if (settled.compareAndSet(false, true)) {
+                                  circuitBreaker.onSuccess(permit);
+                              }
+                          })
+                          .doOnComplete(() -> {
+                              if (settled.compareAndSet(false, true)) {
+                                  circuitBreaker.onSuccess(permit);
+                              }
+                          })
+                          .doOnError(ex -> {
+                              if (settled.compareAndSet(false, true)) {
+                                  recordFailure(permit, ex);
+                              }
+                          })
+                          .doOnCancel(() -> {
+                              if (settled.compareAndSet(false, true)) {
+                                  circuitBreaker.onCancel(permit);
+                              }
+                          });
+        });
+    }
+
+    @Nullable
+    private CircuitBreaker.Permit acquirePermission() {
+        CircuitBreaker.Permit permit = circuitBreaker.tryAcquirePermission();
+        if (permit == null) {
+            callsRejected.increment();
+        }
+        return permit;
+    }
+
+    private CircuitBreakerOpenException circuitOpen() {
+        return new CircuitBreakerOpenException("Circuit breaker is open for " + client);
+    }
+
+    private void recordFailure(CircuitBreaker.Permit permit, Throwable ex) {
+        if (retryable.test(ex)) {
+            circuitBreaker.onFailure(permit);
+        } else {
+            // client side errors say nothing about the health of the downstream service
+            circuitBreaker.onSuccess(permit);
+        }
+    }
+
+    private Retry retrySpec() {
+        return retrySpec(ex -> true);
+    }
+
+    private Retry retrySpec(Predicate<Throwable> resumable) {
+        return Retry.backoff(maxRetries, minBackoff)
+                    .maxBackoff(maxBackoff)
+                    .jitter(jitter)
+                    .filter(ex -> {
+                        if (!retryable.test(ex) || !resumable.test(ex)) {
+                            return false;
+                        }
+                        if (!retryBudget.tryWithdraw()) {
+                            log.info("Retry budget exhausted for {}", client);
+                            retriesDenied.increment();
+                            return false;
+                        }
+                        return true;
+                    })
+                    .doBeforeRetry(retrySignal -> retries.increment())
+                    .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> Exceptions.propagate(retrySignal.failure()));
+    }
+}
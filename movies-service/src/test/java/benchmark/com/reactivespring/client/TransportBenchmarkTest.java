@@ -0,0 +1,190 @@
+package com.reactivespring.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import io.rsocket.core.RSocketServer;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The WebClient path against the RSocket path for the two call shapes movies-service makes: concurrent single
+ * lookups and a long event stream, served by in-process stubs with identical payloads. Counts are asserted,
+ * timings are logged for comparison.
+ */
+class TransportBenchmarkTest {
+
+    static final Logger log = LoggerFactory.getLogger(TransportBenchmarkTest.class);
+
+    static final int LOOKUPS = 2_000;
+    static final int CONCURRENCY = 64;
+    static final int STREAM_EVENTS = 20_000;
+    static final int WARMUP_ROUNDS = 2;
+
+    static final MovieInfo MOVIE_INFO = new MovieInfo("abc",
+                                                      "Batman Begins",
+                                                      2005,
+                                                      List.of("Christian Bale", "Michael Cane"),
+                                                      LocalDate.parse("2005-06-15"));
+
+    ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json()
+                                                         .build();
+
+    DisposableServer httpServer;
+    CloseableChannel rsocketServer;
+    WebClient webClient;
+    RSocketRequester requester;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        byte[] movieInfoJson = jsonMapper.writeValueAsBytes(MOVIE_INFO);
+        httpServer = HttpServer.create()
+                               .host("localhost")
+                               .port(0)
+                               .route(routes -> routes.get("/v1/movieinfos/stream",
+                                                           (request, response) -> response.header(HttpHeaders.CONTENT_TYPE,
+                                                                                                  MediaType.APPLICATION_NDJSON_VALUE)
+                                                                                          .sendString(events().map(this::ndjson)))
+                                                      .get("/v1/movieinfos/{id}",
+                                                           (request, response) -> response.header(HttpHeaders.CONTENT_TYPE,
+                                                                                                  MediaType.APPLICATION_JSON_VALUE)
+                                                                                          .sendByteArray(Mono.just(movieInfoJson))))
+                               .bindNow();
+        webClient = WebClient.create("http://localhost:" + httpServer.port());
+
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor()
+                                                             .build();
+        RSocketStrategies strategies = RSocketStrategies.builder()
+                                                        .encoders(encoders -> encoders.add(new Jackson2CborEncoder(cborMapper)))
+                                                        .decoders(decoders -> decoders.add(new Jackson2CborDecoder(cborMapper)))
+                                                        .build();
+        RSocketMessageHandler handler = new RSocketMessageHandler();
+        handler.setRSocketStrategies(strategies);
+        handler.setHandlers(List.of(new StubMoviesInfoRoutes()));
+        handler.afterPropertiesSet();
+        rsocketServer = RSocketServer.create(handler.responder())
+                                     .bind(TcpServerTransport.create("localhost", 0))
+                                     .block();
+        requester = RSocketRequester.builder()
+                                    .rsocketStrategies(strategies)
+                                    .dataMimeType(MediaType.APPLICATION_CBOR)
+                                    .tcp("localhost", rsocketServer.address()
+                                                                   .getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        requester.dispose();
+        rsocketServer.dispose();
+        httpServer.disposeNow();
+    }
+
+    @Test
+    void lookups() {
+
+        // given
+        Supplier<Mono<MovieInfo>> http = () -> webClient.get()
+                                                        .uri("/v1/movieinfos/{id}", "abc")
+                                                        .retrieve()
+                                                        .bodyToMono(MovieInfo.class);
+        Supplier<Mono<MovieInfo>> rsocket = () -> requester.route("movieinfos.{id}", "abc")
+                                                           .retrieveMono(MovieInfo.class);
+
+        // when, then
+        report("lookups", "http", LOOKUPS, () -> lookups(http));
+        report("lookups", "rsocket", LOOKUPS, () -> lookups(rsocket));
+    }
+
+    @Test
+    void stream() {
+
+        // given
+        Supplier<Flux<MovieInfoEvent>> http = () -> webClient.get()
+                                                             .uri("/v1/movieinfos/stream")
+                                                             .accept(MediaType.APPLICATION_NDJSON)
+                                                             .retrieve()
+                                                             .bodyToFlux(MovieInfoEvent.class);
+        Supplier<Flux<MovieInfoEvent>> rsocket = () -> requester.route("movieinfos.stream")
+                                                                .retrieveFlux(MovieInfoEvent.class);
+
+        // when, then
+        report("stream", "http", STREAM_EVENTS, () -> count(http.get()));
+        report("stream", "rsocket", STREAM_EVENTS, () -> count(rsocket.get()));
+    }
+
+    private long lookups(Supplier<Mono<MovieInfo>> lookup) {
+        return Flux.range(0, LOOKUPS)
+                   .flatMap(i -> lookup.get(), CONCURRENCY)
+                   .count()
+                   .block();
+    }
+
+    private static long count(Flux<MovieInfoEvent> events) {
+        return events.count()
+                     .block();
+    }
+
+    private void report(String shape, String transport, long expected, Supplier<Long> run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            assertEquals(expected, run.get());
+        }
+        long start = System.nanoTime();
+        assertEquals(expected, run.get());
+        long micros = (System.nanoTime() - start) / 1_000;
+        log.info(String.format("%-8s %-8s %8d items in %8d us, %8d items/s",
+                               shape, transport, expected, micros, expected * 1_000_000 / Math.max(1, micros)));
+    }
+
+    private Flux<MovieInfoEvent> events() {
+        return Flux.range(1, STREAM_EVENTS)
+                   .map(id -> new MovieInfoEvent(id, 1L, MovieInfoEvent.Type.UPDATED, Instant.now(), MOVIE_INFO));
+    }
+
+    private String ndjson(MovieInfoEvent event) {
+        try {
+            return jsonMapper.writeValueAsString(event) + "\n";
+        } catch (Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    class StubMoviesInfoRoutes {
+
+        @MessageMapping("movieinfos.{id}")
+        public Mono<MovieInfo> movieInfo(@DestinationVariable String id) {
+            return Mono.just(MOVIE_INFO);
+        }
+
+        @MessageMapping("movieinfos.stream")
+        public Flux<MovieInfoEvent> stream() {
+            return events();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.reactivespring.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Payload size and encode/decode cost of JSON versus Smile for a page of {@link Movie} aggregates, the shape
+ * movies-service receives and returns on its hot path. Results are logged for comparison.
+ */
+class WireFormatBenchmarkTest {
+
+    static final Logger log = LoggerFactory.getLogger(WireFormatBenchmarkTest.class);
+
+    static final int MOVIES = 20;
+    static final int REVIEWS_PER_MOVIE = 100;
+    static final int WARMUP_ITERATIONS = 200;
+    static final int MEASURED_ITERATIONS = 500;
+
+    static final TypeReference<List<Movie>> MOVIE_LIST = new TypeReference<>() {
+    };
+
+    ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json()
+                                                         .build();
+    ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile()
+                                                          .build();
+
+    @Test
+    void smileVersusJson() throws IOException {
+
+        // given
+        List<Movie> movies = movies();
+
+        // when
+        byte[] json = jsonMapper.writeValueAsBytes(movies);
+        byte[] smile = smileMapper.writeValueAsBytes(movies);
+
+        // then
+        assertEquals(movies, smileMapper.readValue(smile, MOVIE_LIST));
+
+        log.info("{} movies x {} reviews", MOVIES, REVIEWS_PER_MOVIE);
+        report("json", jsonMapper, movies, json.length);
+        report("smile", smileMapper, movies, smile.length);
+    }
+
+    private void report(String format, ObjectMapper mapper, List<Movie> movies, int size) throws IOException {
+        byte[] payload = mapper.writeValueAsBytes(movies);
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            mapper.readValue(mapper.writeValueAsBytes(movies), MOVIE_LIST);
+        }
+
+        long encodeStart = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            mapper.writeValueAsBytes(movies);
+        }
+        long encodeNanos = (System.nanoTime() - encodeStart) / MEASURED_ITERATIONS;
+
+        long decodeStart = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            mapper.readValue(payload, MOVIE_LIST);
+        }
+        long decodeNanos = (System.nanoTime() - decodeStart) / MEASURED_ITERATIONS;
+
+        log.info(String.format("%-6s size %8d bytes, encode %8d us, decode %8d us",
+                               format, size, encodeNanos / 1_000, decodeNanos / 1_000));
+    }
+
+    private static List<Movie> movies() {
+        return IntStream.range(0, MOVIES)
+                        .mapToObj(movie -> new Movie(new MovieInfo(String.valueOf(movie),
+                                                                   "Batman Begins " + movie,
+                                                                   2005,
+                                                                   List.of("Christian Bale", "Michael Cane"),
+                                                                   LocalDate.parse("2005-06-15")),
+                                                     IntStream.range(0, REVIEWS_PER_MOVIE)
+                                                              .mapToObj(review -> new Review(movie + "-" + review,
+                                                                                             (long) movie,
+                                                                                             "Awesome Movie, would watch again " + review,
+                                                                                             8.5))
+                                                              .collect(Collectors.toList())))
+                        .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,147 @@
+package com.reactivespring.controller;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.reactivespring.cache.MissingMovieInfoCache;
+import com.reactivespring.cache.MovieInfoCache;
+import com.reactivespring.cache.MovieResponseCache;
+import com.reactivespring.domain.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Objects;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@AutoConfigureWireMock(port = 0)
+@TestPropertySource(properties = {
+        "restClient.moviesInfoUrl: http://localhost:${wiremock.server.port}/v1/movieinfos",
+        "restClient.reviewsUrl: http://localhost:${wiremock.server.port}/v1/reviews",
+        "restClient.movieInfoStream.cacheWarming: false",
+        "movies.responseCache.streamInvalidation: false"})
+public class MovieResponseCacheIntgTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    MovieInfoCache movieInfoCache;
+
+    @Autowired
+    MissingMovieInfoCache missingMovieInfoCache;
+
+    @Autowired
+    MovieResponseCache movieResponseCache;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoCache.invalidateAll();
+        missingMovieInfoCache.invalidateAll();
+        movieResponseCache.invalidateAll();
+
+        stubFor(get(urlEqualTo("/v1/movieinfos/abc")).willReturn(aResponse().withHeader("Content-Type",
+                                                                                        "application/json")
+                                                                            .withBodyFile("movieinfo.json")));
+        stubFor(get(urlPathEqualTo("/v1/reviews")).willReturn(aResponse().withHeader("Content-Type", "application/json")
+                                                                         .withBodyFile("reviews.json")));
+    }
+
+    @Test
+    void fetchMovieById_servedFromResponseCache() {
+
+        // when
+        String firstEtag = fetchEtag("abc");
+        String secondEtag = fetchEtag("abc");
+
+        // then
+        assertEquals(firstEtag, secondEtag);
+        WireMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+    }
+
+    @Test
+    void fetchMovieById_ifNoneMatch() {
+
+        // given
+        String etag = fetchEtag("abc");
+
+        // when
+        webTestClient.get()
+                     .uri("/v1/movies/{id}", "abc")
+                     .ifNoneMatch(etag)
+                     .exchange()
+                     .expectStatus()
+                     .isEqualTo(HttpStatus.NOT_MODIFIED)
+                     .expectHeader()
+                     .valueEquals("ETag", etag)
+                     .expectBody()
+                     .isEmpty();
+
+        // then
+        WireMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+    }
+
+    @Test
+    void fetchMovieById_invalidated() {
+
+        // given
+        fetchEtag("abc");
+
+        // when
+        movieResponseCache.invalidate("abc");
+        fetchEtag("abc");
+
+        // then
+        WireMock.verify(2, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+    }
+
+    @Test
+    void fetchMovieById_fields_notCached() {
+
+        // when
+        for (int i = 0; i < 2; i++) {
+            webTestClient.get()
+                         .uri("/v1/movies/{id}?fields=movieInfo,reviewList", "abc")
+                         .exchange()
+                         .expectStatus()
+                         .isOk()
+                         .expectHeader()
+                         .exists("ETag");
+        }
+
+        // then
+        WireMock.verify(2, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+    }
+
+    private String fetchEtag(String movieId) {
+        return webTestClient.get()
+                            .uri("/v1/movies/{id}", movieId)
+                            .exchange()
+                            .expectStatus()
+                            .isOk()
+                            .expectBody(Movie.class)
+                            .consumeWith(movieEntityExchangeResult -> assertEquals("Batman Begins",
+                                                                                   Objects.requireNonNull(
+                                                                                                  movieEntityExchangeResult.getResponseBody())
+                                                                                          .getMovieInfo()
+                                                                                          .getName()))
+                            .returnResult()
+                            .getResponseHeaders()
+                            .getETag();
+    }
+}
@@ -0,0 +1,96 @@
+package com.reactivespring.controller;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.reactivespring.cache.MissingMovieInfoCache;
+import com.reactivespring.cache.MovieInfoCache;
+import com.reactivespring.domain.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.Objects;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@AutoConfigureWireMock(port = 0)
+@TestPropertySource(properties = {
+        "restClient.moviesInfoUrl: http://localhost:${wiremock.server.port}/v1/movieinfos",
+        "restClient.reviewsUrl: http://localhost:${wiremock.server.port}/v1/reviews",
+        "restClient.movieInfoStream.cacheWarming: false",
+        "restClient.batching.moviesInfo.enabled: true",
+        "restClient.batching.moviesInfo.window: 200ms",
+        "restClient.batching.reviews.enabled: true",
+        "restClient.batching.reviews.window: 200ms",
+        "movies.responseCache.enabled: false"})
+public class MoviesControllerBatchingIntgTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    MovieInfoCache movieInfoCache;
+
+    @Autowired
+    MissingMovieInfoCache missingMovieInfoCache;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoCache.invalidateAll();
+        missingMovieInfoCache.invalidateAll();
+
+        stubFor(post(urlEqualTo("/v1/movieinfos/bulk")).willReturn(aResponse().withHeader("Content-Type",
+                                                                                          "application/json")
+                                                                              .withBodyFile("movieinfos.json")));
+        stubFor(post(urlEqualTo("/v1/reviews/bulk")).willReturn(aResponse().withHeader("Content-Type",
+                                                                                       "application/json")
+                                                                           .withBodyFile("reviewsbymovieinfoid.json")));
+    }
+
+    @Test
+    void fetchMovieById_concurrentLookupsAreBatched() {
+
+        // when
+        Map<String, HttpStatus> statusById = Flux.just("1", "2", "3")
+                                                 .flatMap(movieId -> Mono.fromCallable(() -> fetch(movieId))
+                                                                         .subscribeOn(Schedulers.boundedElastic()))
+                                                 .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                                                 .block();
+
+        // then
+        assertEquals(Map.of("1", HttpStatus.OK, "2", HttpStatus.OK, "3", HttpStatus.NOT_FOUND), statusById);
+        WireMock.verify(1, postRequestedFor(urlEqualTo("/v1/movieinfos/bulk")));
+        WireMock.verify(1, postRequestedFor(urlEqualTo("/v1/reviews/bulk")));
+        WireMock.verify(0, getRequestedFor(urlPathMatching("/v1/(movieinfos|reviews).*")));
+    }
+
+    private Map.Entry<String, HttpStatus> fetch(String movieId) {
+        HttpStatus status = webTestClient.get()
+                                         .uri("/v1/movies/{id}", movieId)
+                                         .exchange()
+                                         .expectBody(Movie.class)
+                                         .returnResult()
+                                         .getStatus();
+        return Map.entry(movieId, Objects.requireNonNull(status));
+    }
+}
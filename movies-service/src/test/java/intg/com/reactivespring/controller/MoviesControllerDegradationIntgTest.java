@@ -0,0 +1,148 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.cache.MissingMovieInfoCache;
+import com.reactivespring.cache.MovieInfoCache;
+import com.reactivespring.cache.MovieResponseCache;
+import com.reactivespring.cache.ReviewsFallbackCache;
+import com.reactivespring.domain.Movie;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Objects;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@AutoConfigureWireMock(port = 0)
+@TestPropertySource(properties = {
+        "restClient.moviesInfoUrl: http://localhost:${wiremock.server.port}/v1/movieinfos",
+        "restClient.reviewsUrl: http://localhost:${wiremock.server.port}/v1/reviews",
+        "restClient.movieInfoStream.cacheWarming: false",
+        "movies.responseCache.streamInvalidation: false",
+        "movies.degradation.reviews.enabled: true",
+        "movies.degradation.reviews.budget: 200ms"})
+public class MoviesControllerDegradationIntgTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    MovieInfoCache movieInfoCache;
+
+    @Autowired
+    MissingMovieInfoCache missingMovieInfoCache;
+
+    @Autowired
+    MovieResponseCache movieResponseCache;
+
+    @Autowired
+    ReviewsFallbackCache reviewsFallbackCache;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoCache.invalidateAll();
+        missingMovieInfoCache.invalidateAll();
+        movieResponseCache.invalidateAll();
+        reviewsFallbackCache.invalidateAll();
+
+        stubFor(get(urlEqualTo("/v1/movieinfos/abc")).willReturn(aResponse().withHeader("Content-Type",
+                                                                                        "application/json")
+                                                                            .withBodyFile("movieinfo.json")));
+    }
+
+    @Test
+    void fetchMovieById_slowReviews() {
+
+        // given
+        stubReviews(1000);
+        double degradedBefore = degraded("empty");
+
+        // when
+        Movie movie = fetchMovie();
+
+        // then
+        assertEquals("Batman Begins", movie.getMovieInfo()
+                                           .getName());
+        assertTrue(movie.getReviewList()
+                        .isEmpty());
+        assertEquals(Boolean.TRUE, movie.getReviewsIncomplete());
+        assertEquals(degradedBefore + 1, degraded("empty"));
+    }
+
+    @Test
+    void fetchMovieById_slowReviews_servesLastKnownReviews() {
+
+        // given
+        stubReviews(0);
+        fetchMovie();
+        movieResponseCache.invalidateAll();
+        stubReviews(1000);
+
+        // when
+        Movie movie = fetchMovie();
+
+        // then
+        assertEquals(2, movie.getReviewList()
+                             .size());
+        assertEquals(Boolean.TRUE, movie.getReviewsIncomplete());
+    }
+
+    @Test
+    void fetchMovieById_degradedResponseNotCached() {
+
+        // given
+        stubReviews(1000);
+        fetchMovie();
+        stubReviews(0);
+
+        // when
+        Movie movie = fetchMovie();
+
+        // then
+        assertEquals(2, movie.getReviewList()
+                             .size());
+        assertNull(movie.getReviewsIncomplete());
+    }
+
+    private void stubReviews(int delayMillis) {
+        stubFor(get(urlPathEqualTo("/v1/reviews")).willReturn(aResponse().withHeader("Content-Type", "application/json")
+                                                                         .withBodyFile("reviews.json")
+                                                                         .withFixedDelay(delayMillis)));
+    }
+
+    private Movie fetchMovie() {
+        return Objects.requireNonNull(webTestClient.get()
+                                                   .uri("/v1/movies/{id}", "abc")
+                                                   .exchange()
+                                                   .expectStatus()
+                                                   .isOk()
+                                                   .expectBody(Movie.class)
+                                                   .returnResult()
+                                                   .getResponseBody());
+    }
+
+    private double degraded(String fallback) {
+        return meterRegistry.counter("movies.degraded.responses", "part", "reviews", "fallback", fallback)
+                            .count();
+    }
+}
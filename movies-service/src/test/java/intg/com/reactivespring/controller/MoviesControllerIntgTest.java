@@ -1,26 +1,39 @@
 package com.reactivespring.controller;
 
 import com.github.tomakehurst.wiremock.client.WireMock;
+import com.reactivespring.cache.MissingMovieInfoCache;
+import com.reactivespring.cache.MovieInfoCache;
 import com.reactivespring.domain.Movie;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
 
+import java.util.List;
 import java.util.Objects;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
@@ -28,12 +41,26 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 @AutoConfigureWireMock(port = 8084) // spin up a httpserver in port 8084
 @TestPropertySource(properties = {
         "restClient.moviesInfoUrl: http://localhost:8084/v1/movieinfos",
-        "restClient.reviewsUrl: http://localhost:8084/v1/reviews"})
+        "restClient.reviewsUrl: http://localhost:8084/v1/reviews",
+        "restClient.movieInfoStream.cacheWarming: false",
+        "movies.responseCache.enabled: false"})
 public class MoviesControllerIntgTest {
 
     @Autowired
     WebTestClient webTestClient;
 
+    @Autowired
+    MovieInfoCache movieInfoCache;
+
+    @Autowired
+    MissingMovieInfoCache missingMovieInfoCache;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoCache.invalidateAll();
+        missingMovieInfoCache.invalidateAll();
+    }
+
     @Test
     void fetchMovieById() {
 
@@ -67,6 +94,258 @@ public class MoviesControllerIntgTest {
                      });
     }
 
+    @Test
+    void fetchMovieStreamById() {
+
+        // given
+        String movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId)).willReturn(aResponse().withHeader("Content-Type",
+                                                                                                    "application/json")
+                                                                                        .withBodyFile("movieinfo.json")));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews")).willReturn(aResponse().withHeader("Content-Type", "application/json")
+                                                                         .withBodyFile("reviews.json")));
+
+        // when
+        Flux<String> lines = webTestClient.get()
+                                          .uri("/v1/movies/{id}", movieId)
+                                          .accept(MediaType.APPLICATION_NDJSON)
+                                          .exchange()
+                                          .expectStatus()
+                                          .isOk()
+                                          .returnResult(String.class)
+                                          .getResponseBody();
+
+        // then
+        StepVerifier.create(lines)
+                    .assertNext(line -> assertTrue(line.contains("Batman Begins")))
+                    .assertNext(line -> assertTrue(line.contains("reviewId")))
+                    .assertNext(line -> assertTrue(line.contains("reviewId")))
+                    .verifyComplete();
+    }
+
+    @Test
+    void prometheusEndpoint_exposesClientMetrics() {
+
+        // given
+        String movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId)).willReturn(aResponse().withHeader("Content-Type",
+                                                                                                    "application/json")
+                                                                                        .withBodyFile("movieinfo.json")));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews")).willReturn(aResponse().withHeader("Content-Type", "application/json")
+                                                                         .withBodyFile("reviews.json")));
+
+        webTestClient.get()
+                     .uri("/v1/movies/{id}", movieId)
+                     .exchange()
+                     .expectStatus()
+                     .isOk();
+
+        // when
+        webTestClient.get()
+                     .uri("/actuator/prometheus")
+                     .exchange()
+                     .expectStatus()
+                     .isOk()
+                     .expectBody(String.class)
+                     .value(body -> {
+                         assertTrue(body.contains("restclient_calls_seconds_bucket"));
+                         assertTrue(body.contains("restclient_requests_seconds_count{client=\"reviews\""));
+                         assertTrue(body.contains("restclient_inflight"));
+                     });
+    }
+
+    @Test
+    void fetchMovieById_cached() {
+
+        // given
+        String movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId)).willReturn(aResponse().withHeader("Content-Type",
+                                                                                                    "application/json")
+                                                                                        .withBodyFile("movieinfo.json")));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews")).willReturn(aResponse().withHeader("Content-Type", "application/json")
+                                                                         .withBodyFile("reviews.json")));
+
+        // when
+        for (int i = 0; i < 2; i++) {
+            webTestClient.get()
+                         .uri("/v1/movies/{id}", movieId)
+                         .exchange()
+                         .expectStatus()
+                         .isOk()
+                         .expectBody(Movie.class)
+                         .consumeWith(movieEntityExchangeResult -> assertEquals("Batman Begins",
+                                                                                Objects.requireNonNull(
+                                                                                               movieEntityExchangeResult.getResponseBody())
+                                                                                       .getMovieInfo()
+                                                                                       .getName()));
+        }
+
+        // then
+        WireMock.verify(1, getRequestedFor(urlEqualTo("/v1/movieinfos" + "/" + movieId)));
+        WireMock.verify(2, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+    }
+
+    @Test
+    void fetchMovieById_fields() {
+
+        // given
+        String movieId = "abc";
+        stubFor(get(urlPathEqualTo("/v1/movieinfos" + "/" + movieId)).withQueryParam("fields", equalTo("name,year"))
+                                                                     .willReturn(aResponse().withHeader("Content-Type",
+                                                                                                        "application/json")
+                                                                                            .withBodyFile("movieinfo.json")));
+
+        // when
+        webTestClient.get()
+                     .uri("/v1/movies/{id}?fields=movieInfo.name,movieInfo.year", movieId)
+                     .exchange()
+                     .expectStatus()
+                     .isOk()
+                     .expectBody()
+                     .jsonPath("$.movieInfo.name")
+                     .isEqualTo("Batman Begins")
+                     .jsonPath("$.reviewList")
+                     .doesNotExist();
+
+        // then
+        WireMock.verify(0, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+    }
+
+    @Test
+    void fetchMovieById_fields_projectsCachedMovieInfo() {
+
+        // given
+        String movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId)).willReturn(aResponse().withHeader("Content-Type",
+                                                                                                    "application/json")
+                                                                                        .withBodyFile("movieinfo.json")));
+        stubFor(get(urlPathEqualTo("/v1/reviews")).willReturn(aResponse().withHeader("Content-Type", "application/json")
+                                                                         .withBodyFile("reviews.json")));
+        webTestClient.get()
+                     .uri("/v1/movies/{id}", movieId)
+                     .exchange()
+                     .expectStatus()
+                     .isOk();
+
+        // when
+        webTestClient.get()
+                     .uri("/v1/movies/{id}?fields=movieInfo.name,reviewList.rating", movieId)
+                     .exchange()
+                     .expectStatus()
+                     .isOk()
+                     .expectBody()
+                     .jsonPath("$.movieInfo.name")
+                     .isEqualTo("Batman Begins")
+                     .jsonPath("$.movieInfo.cast")
+                     .doesNotExist()
+                     .jsonPath("$.reviewList.length()")
+                     .isEqualTo(2);
+
+        // then
+        WireMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/movieinfos" + "/" + movieId)));
+        WireMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/reviews")).withQueryParam("fields", equalTo("rating")));
+    }
+
+    @Test
+    void fetchMovieById_unknownField() {
+
+        // when
+        webTestClient.get()
+                     .uri("/v1/movies/{id}?fields=movieInfo.budget", "abc")
+                     .exchange()
+                     .expectStatus()
+                     .isBadRequest();
+    }
+
+    @Test
+    void fetchMoviesByIds() {
+
+        // given
+        stubFor(post(urlEqualTo("/v1/movieinfos/bulk")).willReturn(aResponse().withHeader("Content-Type",
+                                                                                          "application/json")
+                                                                              .withBodyFile("movieinfos.json")));
+
+        stubFor(post(urlEqualTo("/v1/reviews/bulk")).willReturn(aResponse().withHeader("Content-Type",
+                                                                                       "application/json")
+                                                                           .withBodyFile("reviewsbymovieinfoid.json")));
+
+        // when
+        webTestClient.get()
+                     .uri("/v1/movies?ids={ids}", "1,2,3")
+                     .exchange()
+                     .expectStatus()
+                     .isOk()
+                     .expectBodyList(Movie.class)
+                     .consumeWith(movieListEntityExchangeResult -> {
+                         List<Movie> fetchedMovies = movieListEntityExchangeResult.getResponseBody();
+                         assert fetchedMovies != null;
+                         assertEquals(2, fetchedMovies.size());
+                         assertEquals("Batman Begins",
+                                      fetchedMovies.get(0)
+                                                   .getMovieInfo()
+                                                   .getName());
+                         assertEquals(2,
+                                      fetchedMovies.get(0)
+                                                   .getReviewList()
+                                                   .size());
+                         assert fetchedMovies.get(1)
+                                             .getReviewList()
+                                             .isEmpty();
+                     });
+
+        WireMock.verify(1, postRequestedFor(urlEqualTo("/v1/movieinfos/bulk")));
+        WireMock.verify(1, postRequestedFor(urlEqualTo("/v1/reviews/bulk")));
+    }
+
+    @Test
+    void fetchMoviesByIdsBulk() {
+
+        // given
+        stubFor(post(urlEqualTo("/v1/movieinfos/bulk")).willReturn(aResponse().withHeader("Content-Type",
+                                                                                          "application/json")
+                                                                              .withBodyFile("movieinfos.json")));
+
+        stubFor(post(urlEqualTo("/v1/reviews/bulk")).willReturn(aResponse().withHeader("Content-Type",
+                                                                                       "application/json")
+                                                                           .withBodyFile("reviewsbymovieinfoid.json")));
+
+        // when
+        webTestClient.post()
+                     .uri("/v1/movies/bulk")
+                     .bodyValue(List.of("1", "2"))
+                     .exchange()
+                     .expectStatus()
+                     .isOk()
+                     .expectBodyList(Movie.class)
+                     .hasSize(2);
+    }
+
+    @Test
+    void fetchMovieById_404_cachedAsMissing() {
+
+        // given
+        String movieId = "abc";
+
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId)).willReturn(aResponse().withStatus(404)));
+
+        // when
+        for (int i = 0; i < 2; i++) {
+            webTestClient.get()
+                         .uri("/v1/movies/{id}", movieId)
+                         .exchange()
+                         .expectStatus()
+                         .isNotFound()
+                         .expectBody(String.class)
+                         .isEqualTo("There is no movieInfo available for the passed in Id : abc");
+        }
+
+        // then
+        WireMock.verify(1, getRequestedFor(urlEqualTo("/v1/movieinfos" + "/" + movieId)));
+    }
+
     @Test
     void fetchMovieById_404() {
 
@@ -147,6 +426,29 @@ public class MoviesControllerIntgTest {
         WireMock.verify(4, getRequestedFor(urlEqualTo("/v1/movieinfos" + "/" + movieId)));
     }
 
+    @Test
+    void fetchMovieById_deadlineExceeded() {
+
+        // given
+        String movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId)).willReturn(aResponse().withHeader("Content-Type",
+                                                                                                    "application/json")
+                                                                                        .withBodyFile("movieinfo.json")
+                                                                                        .withFixedDelay(1000)));
+
+        // when
+        webTestClient.get()
+                     .uri("/v1/movies/{id}", movieId)
+                     .header("X-Request-Timeout", "300")
+                     .exchange()
+                     .expectStatus()
+                     .isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+
+        // then
+        WireMock.verify(1, getRequestedFor(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                .withHeader("X-Request-Timeout", matching("\\d+")));
+    }
+
     @Test
     void fetchMovieById_reviews_5XX() {
 
@@ -0,0 +1,110 @@
+package com.reactivespring.controller;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.reactivespring.cache.MissingMovieInfoCache;
+import com.reactivespring.cache.MovieInfoCache;
+import com.reactivespring.domain.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Objects;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@AutoConfigureWireMock(port = 0) // random port, so this context can live next to the one in MoviesControllerIntgTest
+@TestPropertySource(properties = {
+        "restClient.moviesInfoUrl: http://localhost:${wiremock.server.port}/v1/movieinfos",
+        "restClient.reviewsUrl: http://localhost:${wiremock.server.port}/v1/reviews",
+        "movies.aggregation.parallel: true",
+        "restClient.movieInfoStream.cacheWarming: false",
+        "movies.responseCache.enabled: false"})
+public class MoviesControllerParallelIntgTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    MovieInfoCache movieInfoCache;
+
+    @Autowired
+    MissingMovieInfoCache missingMovieInfoCache;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoCache.invalidateAll();
+        missingMovieInfoCache.invalidateAll();
+    }
+
+    @Test
+    void fetchMovieById() {
+
+        // given
+        String movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId)).willReturn(aResponse().withHeader("Content-Type",
+                                                                                                    "application/json")
+                                                                                        .withBodyFile("movieinfo.json")
+                                                                                        .withFixedDelay(200)));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews")).willReturn(aResponse().withHeader("Content-Type", "application/json")
+                                                                         .withBodyFile("reviews.json")
+                                                                         .withFixedDelay(200)));
+
+        // when
+        webTestClient.get()
+                     .uri("/v1/movies/{id}", movieId)
+                     .exchange()
+                     .expectStatus()
+                     .isOk()
+                     .expectBody(Movie.class)
+                     .consumeWith(movieEntityExchangeResult -> {
+                         Movie fetchedMovie = movieEntityExchangeResult.getResponseBody();
+                         assertEquals(2,
+                                      Objects.requireNonNull(fetchedMovie)
+                                             .getReviewList()
+                                             .size());
+                         assertEquals("Batman Begins",
+                                      fetchedMovie.getMovieInfo()
+                                                  .getName());
+                     });
+    }
+
+    @Test
+    void fetchMovieById_404() {
+
+        // given
+        String movieId = "abc";
+
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId)).willReturn(aResponse().withStatus(404)));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews")).willReturn(aResponse().withHeader("Content-Type", "application/json")
+                                                                         .withBodyFile("reviews.json")
+                                                                         .withFixedDelay(1000)));
+
+        // when
+        webTestClient.get()
+                     .uri("/v1/movies/{id}", movieId)
+                     .exchange()
+                     .expectStatus()
+                     .is4xxClientError()
+                     .expectBody(String.class)
+                     .isEqualTo("There is no movieInfo available for the passed in Id : abc");
+
+        WireMock.verify(1, getRequestedFor(urlEqualTo("/v1/movieinfos" + "/" + movieId)));
+    }
+}
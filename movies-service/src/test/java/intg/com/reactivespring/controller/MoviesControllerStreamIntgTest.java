@@ -0,0 +1,99 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.cache.MissingMovieInfoCache;
+import com.reactivespring.cache.MovieInfoCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+@AutoConfigureWireMock(port = 0)
+@TestPropertySource(properties = {
+        "restClient.moviesInfoUrl: http://localhost:${wiremock.server.port}/v1/movieinfos",
+        "restClient.reviewsUrl: http://localhost:${wiremock.server.port}/v1/reviews",
+        "restClient.movieInfoStream.cacheWarming: false",
+        "movies.responseCache.enabled: false",
+        "restClient.timeout.reviews: 300ms",
+        "restClient.timeout.reviewsIdle: 2s"})
+public class MoviesControllerStreamIntgTest {
+
+    // the second review sits in the last chunk, so the first one is decoded and written before the stall
+    private static final String STALLING_REVIEWS = "[{\"reviewId\":\"1\",\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0},"
+            + " ".repeat(200)
+            + "{\"reviewId\":\"2\",\"movieInfoId\":1,\"comment\":\"Excellent Movie\",\"rating\":8.0}]";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    MovieInfoCache movieInfoCache;
+
+    @Autowired
+    MissingMovieInfoCache missingMovieInfoCache;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoCache.invalidateAll();
+        missingMovieInfoCache.invalidateAll();
+
+        stubFor(get(urlEqualTo("/v1/movieinfos/abc")).willReturn(aResponse().withHeader("Content-Type",
+                                                                                        "application/json")
+                                                                            .withBodyFile("movieinfo.json")));
+    }
+
+    @Test
+    void fetchMovieStreamById_reviewsStallPartway() {
+
+        // given
+        // the stall between the chunks outlasts the whole call timeout but not the idle timeout
+        stubFor(get(urlPathEqualTo("/v1/reviews")).willReturn(aResponse().withHeader("Content-Type", "application/json")
+                                                                         .withBody(STALLING_REVIEWS)
+                                                                         .withChunkedDribbleDelay(2, 1000)));
+
+        // when
+        List<String> lines = Objects.requireNonNull(webTestClient.get()
+                                                                 .uri("/v1/movies/{id}", "abc")
+                                                                 .accept(MediaType.APPLICATION_NDJSON)
+                                                                 .exchange()
+                                                                 .expectStatus()
+                                                                 .isOk()
+                                                                 .returnResult(String.class)
+                                                                 .getResponseBody()
+                                                                 .collectList()
+                                                                 .block());
+
+        // then
+        assertTrue(lines.get(0)
+                        .contains("Batman Begins"));
+        List<String> reviewLines = lines.subList(1, lines.size());
+        assertEquals(2, reviewLines.size());
+        assertEquals(reviewLines.size(), reviewLines.stream()
+                                                    .distinct()
+                                                    .collect(Collectors.toList())
+                                                    .size());
+        verify(1, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+    }
+}
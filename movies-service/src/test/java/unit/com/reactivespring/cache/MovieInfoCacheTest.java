@@ -0,0 +1,80 @@
+package com.reactivespring.cache;
+
+import com.reactivespring.domain.MovieInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovieInfoCacheTest {
+
+    MovieInfoCache movieInfoCache = new MovieInfoCache(true, 100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+    MovieInfo movieInfo = new MovieInfo("abc",
+                                        "Batman Begins",
+                                        2005,
+                                        List.of("Christian Bale", "Michael Cane"),
+                                        LocalDate.parse("2005-06-15"));
+
+    @Test
+    void get_singleFlight() {
+
+        // given
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<MovieInfo> upstream = Sinks.one();
+
+        // when
+        Mono<MovieInfo> first = movieInfoCache.get("abc", id -> {
+            loads.incrementAndGet();
+            return upstream.asMono();
+        });
+        Mono<MovieInfo> second = movieInfoCache.get("abc", id -> {
+            loads.incrementAndGet();
+            return upstream.asMono();
+        });
+
+        // then
+        StepVerifier.create(Mono.zip(first, second))
+                    .then(() -> upstream.tryEmitValue(movieInfo))
+                    .assertNext(movieInfos -> {
+                        assertEquals(movieInfo, movieInfos.getT1());
+                        assertEquals(movieInfo, movieInfos.getT2());
+                    })
+                    .verifyComplete();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_errorNotCached() {
+
+        // given
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        Mono<MovieInfo> failing = movieInfoCache.get("abc", id -> {
+            loads.incrementAndGet();
+            return Mono.error(new RuntimeException("Unavailable"));
+        });
+        Mono<MovieInfo> succeeding = movieInfoCache.get("abc", id -> {
+            loads.incrementAndGet();
+            return Mono.just(movieInfo);
+        });
+
+        // then
+        StepVerifier.create(failing)
+                    .expectErrorMessage("Unavailable")
+                    .verify();
+        StepVerifier.create(succeeding)
+                    .expectNext(movieInfo)
+                    .verifyComplete();
+        assertEquals(2, loads.get());
+    }
+}
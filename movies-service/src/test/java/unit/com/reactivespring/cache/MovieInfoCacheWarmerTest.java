@@ -0,0 +1,186 @@
+package com.reactivespring.cache;
+
+import com.reactivespring.client.MoviesInfoRestClient;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MovieInfoCacheWarmerTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    MovieInfoCache movieInfoCache = new MovieInfoCache(true, 100, Duration.ofMinutes(10), meterRegistry);
+
+    MissingMovieInfoCache missingMovieInfoCache = new MissingMovieInfoCache(true, 100, Duration.ofMinutes(1),
+                                                                            meterRegistry);
+
+    MoviesInfoRestClient moviesInfoRestClient = mock(MoviesInfoRestClient.class);
+
+    Sinks.Many<MovieInfoEvent> upstream = Sinks.many()
+                                               .multicast()
+                                               .directBestEffort();
+
+    MovieInfoCacheWarmer warmer = new MovieInfoCacheWarmer(moviesInfoRestClient,
+                                                           movieInfoCache,
+                                                           missingMovieInfoCache,
+                                                           Duration.ofSeconds(1),
+                                                           500,
+                                                           meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        when(moviesInfoRestClient.fetchMovieInfoEvents()).thenReturn(upstream.asFlux());
+        warmer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        warmer.stop();
+    }
+
+    @Test
+    void addedEventWarmsCacheAndClearsMissingEntry() {
+
+        // given
+        missingMovieInfoCache.markMissing("abc");
+
+        // when
+        upstream.tryEmitNext(event(1, MovieInfoEvent.Type.ADDED, movieInfo("abc", "Batman Begins")));
+
+        // then
+        assertEquals("Batman Begins", cached("abc").getName());
+        assertFalse(missingMovieInfoCache.isMissing("abc"));
+    }
+
+    @Test
+    void deletedEventEvicts() {
+
+        // given
+        movieInfoCache.put(movieInfo("abc", "Batman Begins"));
+
+        // when
+        upstream.tryEmitNext(event(1, MovieInfoEvent.Type.DELETED, new MovieInfo("abc", null, null, null, null)));
+
+        // then
+        assertNull(cached("abc"));
+    }
+
+    @Test
+    void completedStreamIsFollowedAgain() {
+
+        // when
+        upstream.tryEmitComplete();
+
+        // then
+        verify(moviesInfoRestClient, timeout(5000).atLeast(2)).fetchMovieInfoEvents();
+    }
+
+    @Test
+    void gapReloadsCachedIdsInBulk() {
+
+        // given
+        upstream.tryEmitNext(event(1, MovieInfoEvent.Type.ADDED, movieInfo("abc", "Batman Begins")));
+        movieInfoCache.put(movieInfo("def", "The Dark Knight"));
+        when(moviesInfoRestClient.fetchMovieInfos(anyList())).thenReturn(Flux.just(movieInfo("abc",
+                                                                                             "Batman Begins (Remastered)")));
+
+        // when
+        upstream.tryEmitNext(event(5, MovieInfoEvent.Type.ADDED, movieInfo("ghi", "Dark Knight Rises")));
+
+        // then
+        assertEquals("Batman Begins (Remastered)", cached("abc").getName());
+        assertNull(cached("def"));
+        assertEquals("Dark Knight Rises", cached("ghi").getName());
+        assertEquals(1, meterRegistry.get("movieinfo.cache.warmer.reloads")
+                                     .counter()
+                                     .count());
+    }
+
+    @Test
+    void newEpochReloadsEvenWhenIdsKeepRising() {
+
+        // given
+        upstream.tryEmitNext(event(1, 3, MovieInfoEvent.Type.ADDED, movieInfo("abc", "Batman Begins")));
+        when(moviesInfoRestClient.fetchMovieInfos(anyList())).thenReturn(Flux.just(movieInfo("abc",
+                                                                                             "Batman Begins (Remastered)")));
+
+        // when upstream restarted and its new ids happen to follow on
+        upstream.tryEmitNext(event(2, 4, MovieInfoEvent.Type.ADDED, movieInfo("ghi", "Dark Knight Rises")));
+
+        // then
+        assertEquals("Batman Begins (Remastered)", cached("abc").getName());
+        assertEquals(1, meterRegistry.get("movieinfo.cache.warmer.reloads")
+                                     .counter()
+                                     .count());
+    }
+
+    @Test
+    void replayedLatestEventIsNotAGap() {
+
+        // when
+        upstream.tryEmitNext(event(3, MovieInfoEvent.Type.ADDED, movieInfo("abc", "Batman Begins")));
+        upstream.tryEmitNext(event(3, MovieInfoEvent.Type.ADDED, movieInfo("abc", "Batman Begins")));
+        upstream.tryEmitNext(event(4, MovieInfoEvent.Type.UPDATED, movieInfo("abc", "Batman Begins (Remastered)")));
+
+        // then
+        verify(moviesInfoRestClient, never()).fetchMovieInfos(anyList());
+        assertEquals("Batman Begins (Remastered)", cached("abc").getName());
+        assertTrue(meterRegistry.get("movieinfo.cache.warmer.lag")
+                                .timeGauge()
+                                .value() >= 0);
+    }
+
+    @Test
+    void disabledMissingCacheNeverShortCircuits() {
+
+        // given
+        MissingMovieInfoCache disabled = new MissingMovieInfoCache(false, 100, Duration.ofMinutes(1),
+                                                                   new SimpleMeterRegistry());
+
+        // when
+        disabled.markMissing("abc");
+
+        // then
+        assertFalse(disabled.isMissing("abc"));
+    }
+
+    private MovieInfo cached(String movieId) {
+        return movieInfoCache.get(movieId, id -> Mono.empty())
+                             .block();
+    }
+
+    private static MovieInfoEvent event(long eventId, MovieInfoEvent.Type type, MovieInfo movieInfo) {
+        return event(1, eventId, type, movieInfo);
+    }
+
+    private static MovieInfoEvent event(long epoch, long eventId, MovieInfoEvent.Type type, MovieInfo movieInfo) {
+        return new MovieInfoEvent(eventId, epoch, type, Instant.now(), movieInfo);
+    }
+
+    private static MovieInfo movieInfo(String movieId, String name) {
+        return new MovieInfo(movieId, name, 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15"));
+    }
+}
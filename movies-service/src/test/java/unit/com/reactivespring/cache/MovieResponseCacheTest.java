@@ -0,0 +1,200 @@
+package com.reactivespring.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MovieResponseCacheTest {
+
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                                                           .build();
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    MovieResponseCache movieResponseCache = new MovieResponseCache(true, DataSize.ofMegabytes(1),
+                                                                   Duration.ofMinutes(10), objectMapper,
+                                                                   meterRegistry);
+
+    AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void hitIsServedOffHeapWithoutLoading() throws IOException {
+
+        // given
+        Movie movie = movie("Batman Begins");
+        MovieResponseCache.EncodedMovie loaded = movieResponseCache.get("abc", load(movie))
+                                                                   .block();
+
+        // when
+        MovieResponseCache.EncodedMovie cached = movieResponseCache.get("abc", load(movie))
+                                                                   .block();
+
+        // then
+        assertEquals(1, loads.get());
+        assertEquals(loaded.getEtag(), cached.getEtag());
+        assertTrue(cached.getBody()
+                         .isDirect());
+        assertEquals(movie, objectMapper.readValue(bytes(cached.getBody()), Movie.class));
+        assertTrue(meterRegistry.get("movies.response.cache.bytes")
+                                .gauge()
+                                .value() > 0);
+    }
+
+    @Test
+    void bodyViewsAreIndependent() {
+
+        // given
+        MovieResponseCache.EncodedMovie encodedMovie = movieResponseCache.get("abc", load(movie("Batman Begins")))
+                                                                         .block();
+
+        // when
+        bytes(encodedMovie.getBody());
+
+        // then
+        assertTrue(encodedMovie.getBody()
+                               .hasRemaining());
+    }
+
+    @Test
+    void etagFollowsContent() {
+        assertEquals(movieResponseCache.encode(movie("Batman Begins"))
+                                       .getEtag(),
+                     movieResponseCache.encode(movie("Batman Begins"))
+                                       .getEtag());
+        assertNotEquals(movieResponseCache.encode(movie("Batman Begins"))
+                                          .getEtag(),
+                        movieResponseCache.encode(movie("The Dark Knight"))
+                                          .getEtag());
+    }
+
+    @Test
+    void invalidateDropsTheEntry() {
+
+        // given
+        movieResponseCache.get("abc", load(movie("Batman Begins")))
+                          .block();
+
+        // when
+        movieResponseCache.invalidate("abc");
+        movieResponseCache.get("abc", load(movie("Batman Begins")))
+                          .block();
+
+        // then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotCached() {
+
+        // given
+        Mono<Movie> slowLoad = load(movie("Batman Begins")).doOnNext(movie -> movieResponseCache.invalidate("abc"));
+
+        // when
+        movieResponseCache.get("abc", slowLoad)
+                          .block();
+        movieResponseCache.get("abc", load(movie("Batman Begins")))
+                          .block();
+
+        // then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadOverlappingAnotherMoviesInvalidationIsCached() {
+
+        // given
+        Mono<Movie> slowLoad = load(movie("Batman Begins")).doOnNext(movie -> movieResponseCache.invalidate("def"));
+
+        // when
+        movieResponseCache.get("abc", slowLoad)
+                          .block();
+        movieResponseCache.get("abc", load(movie("Batman Begins")))
+                          .block();
+
+        // then
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void loadOverlappingInvalidateAllIsNotCached() {
+
+        // given
+        Mono<Movie> slowLoad = load(movie("Batman Begins")).doOnNext(movie -> movieResponseCache.invalidateAll());
+
+        // when
+        movieResponseCache.get("abc", slowLoad)
+                          .block();
+        movieResponseCache.get("abc", load(movie("Batman Begins")))
+                          .block();
+
+        // then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void emptyAndErrorsAreNotCached() {
+
+        StepVerifier.create(movieResponseCache.get("abc", Mono.empty()))
+                    .verifyComplete();
+        StepVerifier.create(movieResponseCache.get("abc", Mono.error(new IllegalStateException("boom"))))
+                    .verifyError(IllegalStateException.class);
+
+        movieResponseCache.get("abc", load(movie("Batman Begins")))
+                          .block();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void disabledAlwaysLoads() {
+
+        // given
+        MovieResponseCache disabled = new MovieResponseCache(false, DataSize.ofMegabytes(1), Duration.ofMinutes(10),
+                                                             objectMapper, new SimpleMeterRegistry());
+
+        // when
+        disabled.get("abc", load(movie("Batman Begins")))
+                .block();
+        disabled.get("abc", load(movie("Batman Begins")))
+                .block();
+
+        // then
+        assertEquals(2, loads.get());
+    }
+
+    private Mono<Movie> load(Movie movie) {
+        return Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return movie;
+        });
+    }
+
+    private static byte[] bytes(ByteBuffer body) {
+        byte[] bytes = new byte[body.remaining()];
+        body.get(bytes);
+        return bytes;
+    }
+
+    private static Movie movie(String name) {
+        return new Movie(new MovieInfo("abc", name, 2005, List.of("Christian Bale", "Michael Cane"),
+                                       LocalDate.parse("2005-06-15")),
+                         List.of(new Review("1", 1L, "Awesome Movie", 9.0)));
+    }
+}
@@ -0,0 +1,94 @@
+package com.reactivespring.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import io.rsocket.core.RSocketServer;
+import io.rsocket.transport.netty.server.CloseableChannel;
+import io.rsocket.transport.netty.server.TcpServerTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RSocketStreamBackpressureTest {
+
+    static final MovieInfo MOVIE_INFO = new MovieInfo("abc",
+                                                      "Batman Begins",
+                                                      2005,
+                                                      List.of("Christian Bale", "Michael Cane"),
+                                                      LocalDate.parse("2005-06-15"));
+
+    AtomicLong eventsEmitted = new AtomicLong();
+
+    CloseableChannel rsocketServer;
+    RSocketRequester requester;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor()
+                                                             .build();
+        RSocketStrategies strategies = RSocketStrategies.builder()
+                                                        .encoders(encoders -> encoders.add(new Jackson2CborEncoder(cborMapper)))
+                                                        .decoders(decoders -> decoders.add(new Jackson2CborDecoder(cborMapper)))
+                                                        .build();
+        RSocketMessageHandler handler = new RSocketMessageHandler();
+        handler.setRSocketStrategies(strategies);
+        handler.setHandlers(List.of(new StubMoviesInfoRoutes()));
+        handler.afterPropertiesSet();
+        rsocketServer = RSocketServer.create(handler.responder())
+                                     .bind(TcpServerTransport.create("localhost", 0))
+                                     .block();
+        requester = RSocketRequester.builder()
+                                    .rsocketStrategies(strategies)
+                                    .dataMimeType(MediaType.APPLICATION_CBOR)
+                                    .tcp("localhost", rsocketServer.address()
+                                                                   .getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        requester.dispose();
+        rsocketServer.dispose();
+    }
+
+    @Test
+    void rsocketStreamOnlyProducesWhatIsRequested() {
+
+        // when
+        StepVerifier.create(requester.route("movieinfos.stream")
+                                     .retrieveFlux(MovieInfoEvent.class), 10)
+                    .expectNextCount(10)
+                    .thenCancel()
+                    .verify();
+
+        // then
+        assertTrue(eventsEmitted.get() < 1_000, eventsEmitted.get() + " events emitted for 10 requested");
+    }
+
+    class StubMoviesInfoRoutes {
+
+        @MessageMapping("movieinfos.stream")
+        public Flux<MovieInfoEvent> stream() {
+            return Flux.range(1, 20_000)
+                       .map(id -> new MovieInfoEvent(id, 1L, MovieInfoEvent.Type.UPDATED, Instant.now(), MOVIE_INFO))
+                       .doOnNext(event -> eventsEmitted.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.reactivespring.client;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SharedMovieInfoStreamTest {
+
+    MoviesInfoRestClient moviesInfoRestClient = mock(MoviesInfoRestClient.class);
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    Sinks.Many<MovieInfoEvent> upstream = Sinks.many()
+                                               .multicast()
+                                               .directBestEffort();
+
+    AtomicInteger upstreamSubscriptions = new AtomicInteger();
+
+    AtomicLong eventIds = new AtomicLong();
+
+    MovieInfo movieInfo = new MovieInfo("abc",
+                                        "Batman Begins",
+                                        2005,
+                                        List.of("Christian Bale", "Michael Cane"),
+                                        LocalDate.parse("2005-06-15"));
+
+    @BeforeEach
+    void setUp() {
+        when(moviesInfoRestClient.fetchMovieInfoEvents()).thenReturn(upstream.asFlux()
+                                                                             .doOnSubscribe(subscription -> upstreamSubscriptions.incrementAndGet()));
+    }
+
+    @Test
+    void stream_sharesOneUpstreamSubscription() {
+
+        // given
+        SharedMovieInfoStream sharedMovieInfoStream = new SharedMovieInfoStream(moviesInfoRestClient,
+                                                                                Duration.ofMinutes(1),
+                                                                                16,
+                                                                                "DROP_OLDEST",
+                                                                                meterRegistry);
+        List<MovieInfo> first = new CopyOnWriteArrayList<>();
+        List<MovieInfo> second = new CopyOnWriteArrayList<>();
+
+        // when
+        Disposable firstSubscriber = sharedMovieInfoStream.stream()
+                                                          .subscribe(first::add);
+        Disposable secondSubscriber = sharedMovieInfoStream.stream()
+                                                           .subscribe(second::add);
+        upstream.tryEmitNext(event(MovieInfoEvent.Type.ADDED));
+
+        // then
+        assertEquals(1, upstreamSubscriptions.get());
+        assertEquals(List.of(movieInfo), first);
+        assertEquals(List.of(movieInfo), second);
+
+        // when the last subscriber leaves and a new one arrives within the grace period
+        firstSubscriber.dispose();
+        secondSubscriber.dispose();
+        sharedMovieInfoStream.stream()
+                             .subscribe()
+                             .dispose();
+
+        // then the upstream connection is reused
+        assertEquals(1, upstreamSubscriptions.get());
+    }
+
+    @Test
+    void stream_slowSubscriberDropsOnOverflow() {
+
+        // given
+        SharedMovieInfoStream sharedMovieInfoStream = new SharedMovieInfoStream(moviesInfoRestClient,
+                                                                                Duration.ofMinutes(1),
+                                                                                16,
+                                                                                "DROP_OLDEST",
+                                                                                meterRegistry);
+        List<MovieInfo> fast = new CopyOnWriteArrayList<>();
+
+        // when
+        Disposable fastSubscriber = sharedMovieInfoStream.stream()
+                                                         .subscribe(fast::add);
+        BaseSubscriber<MovieInfo> slowSubscriber = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // never requests anything
+            }
+        };
+        sharedMovieInfoStream.stream()
+                             .subscribe(slowSubscriber);
+        for (int i = 0; i < 20; i++) {
+            upstream.tryEmitNext(event(MovieInfoEvent.Type.ADDED));
+        }
+
+        // then
+        assertEquals(20, fast.size());
+        assertEquals(4,
+                     meterRegistry.get("movieinfo.stream.dropped")
+                                  .counter()
+                                  .count());
+
+        fastSubscriber.dispose();
+        slowSubscriber.dispose();
+    }
+
+    @Test
+    void stream_skipsDeletedEvents() {
+
+        // given
+        SharedMovieInfoStream sharedMovieInfoStream = new SharedMovieInfoStream(moviesInfoRestClient,
+                                                                                Duration.ofMinutes(1),
+                                                                                16,
+                                                                                "DROP_OLDEST",
+                                                                                meterRegistry);
+        List<MovieInfo> movieInfos = new CopyOnWriteArrayList<>();
+        List<MovieInfoEvent> events = new CopyOnWriteArrayList<>();
+
+        // when
+        Disposable streamSubscriber = sharedMovieInfoStream.stream()
+                                                           .subscribe(movieInfos::add);
+        Disposable eventsSubscriber = sharedMovieInfoStream.events()
+                                                           .subscribe(events::add);
+        upstream.tryEmitNext(event(MovieInfoEvent.Type.ADDED));
+        upstream.tryEmitNext(event(MovieInfoEvent.Type.DELETED));
+
+        // then
+        assertEquals(List.of(movieInfo), movieInfos);
+        assertEquals(2, events.size());
+
+        streamSubscriber.dispose();
+        eventsSubscriber.dispose();
+    }
+
+    private MovieInfoEvent event(MovieInfoEvent.Type type) {
+        return new MovieInfoEvent(eventIds.incrementAndGet(), 1L, type, Instant.now(), movieInfo);
+    }
+}
@@ -0,0 +1,61 @@
+package com.reactivespring.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WireFormatTest {
+
+    static final TypeReference<List<Movie>> MOVIE_LIST = new TypeReference<>() {
+    };
+
+    ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json()
+                                                         .build();
+    ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile()
+                                                          .build();
+
+    @Test
+    void smileRoundTripsAndIsSmallerThanJson() throws IOException {
+
+        // given
+        List<Movie> movies = movies();
+
+        // when
+        byte[] json = jsonMapper.writeValueAsBytes(movies);
+        byte[] smile = smileMapper.writeValueAsBytes(movies);
+
+        // then
+        assertEquals(movies, smileMapper.readValue(smile, MOVIE_LIST));
+        assertTrue(smile.length < json.length,
+                   "smile " + smile.length + " bytes should be smaller than json " + json.length + " bytes");
+    }
+
+    private static List<Movie> movies() {
+        return IntStream.range(0, 5)
+                        .mapToObj(movie -> new Movie(new MovieInfo(String.valueOf(movie),
+                                                                   "Batman Begins " + movie,
+                                                                   2005,
+                                                                   List.of("Christian Bale", "Michael Cane"),
+                                                                   LocalDate.parse("2005-06-15")),
+                                                     IntStream.range(0, 10)
+                                                              .mapToObj(review -> new Review(movie + "-" + review,
+                                                                                             (long) movie,
+                                                                                             "Awesome Movie, would watch again " + review,
+                                                                                             8.5))
+                                                              .collect(Collectors.toList())))
+                        .collect(Collectors.toList());
+    }
+}
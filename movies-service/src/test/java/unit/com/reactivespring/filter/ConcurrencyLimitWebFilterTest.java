@@ -0,0 +1,78 @@
+package com.reactivespring.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ConcurrencyLimitWebFilterTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // limit pinned at one request
+    ConcurrencyLimitWebFilter filter = new ConcurrencyLimitWebFilter(1, 1, 1, 0.2, 1.5, 600,
+                                                                     Duration.ofSeconds(2), meterRegistry);
+
+    @Test
+    void rejectsBeyondLimitWithRetryAfter() {
+
+        // given
+        Disposable pending = filter.filter(exchange("/v1/movies/abc"), exchange -> Mono.never())
+                                   .subscribe();
+
+        // when
+        MockServerWebExchange rejected = exchange("/v1/movies/def");
+        filter.filter(rejected, exchange -> Mono.empty())
+              .block();
+
+        // then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getResponse()
+                                                             .getStatusCode());
+        assertEquals("2", rejected.getResponse()
+                                  .getHeaders()
+                                  .getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, meterRegistry.get("movies.concurrency.rejected")
+                                     .counter()
+                                     .count());
+        assertEquals(1, meterRegistry.get("movies.concurrency.inflight")
+                                     .gauge()
+                                     .value());
+
+        pending.dispose();
+        assertEquals(0, meterRegistry.get("movies.concurrency.inflight")
+                                     .gauge()
+                                     .value());
+    }
+
+    @Test
+    void healthChecksBypassTheLimit() {
+
+        // given
+        Disposable pending = filter.filter(exchange("/v1/movies/abc"), exchange -> Mono.never())
+                                   .subscribe();
+
+        // when
+        MockServerWebExchange health = exchange("/actuator/health");
+        filter.filter(health, exchange -> Mono.empty())
+              .block();
+
+        // then
+        assertNull(health.getResponse()
+                         .getStatusCode());
+
+        pending.dispose();
+    }
+
+    private static MockServerWebExchange exchange(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+}
@@ -0,0 +1,88 @@
+package com.reactivespring.tracing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SignalTracerTest {
+
+    // sampling off, only requests carrying a trace id are traced
+    SignalTracer signalTracer = new SignalTracer(0, 8);
+
+    @Test
+    void tracesRequestWithTraceIdHeader() {
+
+        // given
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movies/abc")
+                                                                                         .header(SignalTracer.HEADER, "t-1"));
+
+        // when
+        signalTracer.filter(exchange, serverWebExchange -> Flux.just("a", "b", "c")
+                                                               .transform(signalTracer.flux("fetchReviews"))
+                                                               .then())
+                    .block();
+
+        // then
+        assertEquals("t-1", exchange.getResponse()
+                                    .getHeaders()
+                                    .getFirst(SignalTracer.HEADER));
+        List<TraceEvent> events = signalTracer.dump("t-1");
+        assertEquals(List.of("onSubscribe", "onNext", "onComplete"), events.stream()
+                                                                           .map(TraceEvent::getSignal)
+                                                                           .collect(Collectors.toList()));
+        assertEquals(3, events.get(2)
+                              .getElements());
+    }
+
+    @Test
+    void unsampledRequestRecordsNothing() {
+
+        // given
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movies/abc"));
+
+        // when
+        signalTracer.filter(exchange, serverWebExchange -> Mono.just("a")
+                                                               .transform(signalTracer.mono("fetchMovieInfo"))
+                                                               .then())
+                    .block();
+
+        // then
+        assertTrue(signalTracer.dump(null)
+                               .isEmpty());
+        assertTrue(exchange.getResponse()
+                           .getHeaders()
+                           .getFirst(SignalTracer.HEADER) == null);
+    }
+
+    @Test
+    void recordsErrorsAndKeepsOnlyTheLatestEvents() {
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movies/abc")
+                                                                                             .header(SignalTracer.HEADER, "t-" + i));
+            signalTracer.filter(exchange, serverWebExchange -> Mono.error(new IllegalStateException("boom"))
+                                                                   .transform(signalTracer.mono("fetchMovieInfo"))
+                                                                   .then()
+                                                                   .onErrorResume(error -> Mono.empty()))
+                        .block();
+        }
+
+        // then
+        List<TraceEvent> events = signalTracer.dump(null);
+        assertEquals(8, events.size());
+        assertEquals("t-1", events.get(0)
+                                  .getTraceId());
+        assertEquals("java.lang.IllegalStateException: boom", signalTracer.dump("t-4")
+                                                                          .get(1)
+                                                                          .getError());
+    }
+}
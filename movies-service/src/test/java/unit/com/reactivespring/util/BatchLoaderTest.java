@@ -0,0 +1,155 @@
+package com.reactivespring.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchLoaderTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    List<List<String>> bulkCalls = new CopyOnWriteArrayList<>();
+
+    @Test
+    void concurrentLoadsShareOneBulkCall() {
+
+        // given
+        BatchLoader<String, String> batchLoader = loader(this::upperCase, 100);
+
+        // when
+        StepVerifier.create(Flux.merge(batchLoader.load("a"), batchLoader.load("b"), batchLoader.load("a"))
+                                .collectList())
+                    .assertNext(values -> assertEquals(List.of("A", "A", "B"), values.stream()
+                                                                                     .sorted()
+                                                                                     .collect(Collectors.toList())))
+                    .verifyComplete();
+
+        // then
+        assertEquals(List.of(List.of("a", "b")), bulkCalls);
+        assertEquals(2, meterRegistry.get("restclient.batch.size")
+                                     .summary()
+                                     .totalAmount());
+    }
+
+    @Test
+    void maxBatchSizeSplitsTheBatch() {
+
+        // given
+        BatchLoader<String, String> batchLoader = loader(this::upperCase, 2);
+
+        // when
+        StepVerifier.create(Flux.merge(batchLoader.load("a"), batchLoader.load("b"), batchLoader.load("c"))
+                                .collectList())
+                    .assertNext(values -> assertEquals(3, values.size()))
+                    .verifyComplete();
+
+        // then
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), bulkCalls);
+    }
+
+    @Test
+    void missingKeyCompletesEmpty() {
+
+        // given
+        BatchLoader<String, String> batchLoader = loader(keys -> upperCase(keys).map(values -> Map.of("a", values.get("a"))),
+                                                         100);
+
+        // when
+        Mono<String> found = batchLoader.load("a");
+        Mono<String> missing = batchLoader.load("b");
+
+        // then
+        StepVerifier.create(Flux.merge(found, missing))
+                    .expectNext("A")
+                    .verifyComplete();
+    }
+
+    @Test
+    void isolatedErrorFailsOnlyTheBadKey() {
+
+        // given
+        BatchLoader<String, String> batchLoader = loader(keys -> keys.contains("bad")
+                ? Mono.error(new IllegalArgumentException("bad key"))
+                : upperCase(keys), 100);
+
+        // when
+        Mono<String> good = batchLoader.load("a");
+        Mono<String> bad = batchLoader.load("bad");
+
+        // then
+        StepVerifier.create(Flux.merge(good, bad.onErrorResume(IllegalArgumentException.class,
+                                                               error -> Mono.just("failed"))))
+                    .recordWith(CopyOnWriteArrayList::new)
+                    .expectNextCount(2)
+                    .consumeRecordedWith(values -> assertEquals(List.of("A", "failed"), values.stream()
+                                                                                              .sorted()
+                                                                                              .collect(Collectors.toList())))
+                    .verifyComplete();
+        assertEquals(List.of(List.of("a", "bad"), List.of("a"), List.of("bad")), bulkCalls);
+        assertEquals(1, meterRegistry.get("restclient.batch.isolated")
+                                     .counter()
+                                     .count());
+    }
+
+    @Test
+    void otherErrorsFailTheWholeBatch() {
+
+        // given
+        BatchLoader<String, String> batchLoader = loader(keys -> Mono.error(new IllegalStateException("unavailable")),
+                                                         100);
+
+        // when
+        Mono<String> first = batchLoader.load("a");
+        Mono<String> second = batchLoader.load("b");
+
+        // then
+        StepVerifier.create(Flux.mergeDelayError(2, first, second))
+                    .verifyError(IllegalStateException.class);
+        assertEquals(1, bulkCalls.size());
+    }
+
+    @Test
+    void bulkLoadThrowingFailsOnlyItsBatch() {
+
+        // given
+        BatchLoader<String, String> batchLoader = loader(keys -> {
+            if (bulkCalls.size() == 1) {
+                throw new IllegalStateException("boom");
+            }
+            return upperCase(keys);
+        }, 100);
+
+        // when
+        StepVerifier.create(batchLoader.load("a"))
+                    .verifyError(IllegalStateException.class);
+
+        // then
+        StepVerifier.create(batchLoader.load("b"))
+                    .expectNext("B")
+                    .verifyComplete();
+    }
+
+    private BatchLoader<String, String> loader(Function<List<String>, Mono<Map<String, String>>> bulkLoad,
+                                               int maxBatchSize) {
+        return new BatchLoader<>("test", keys -> {
+            bulkCalls.add(keys);
+            return bulkLoad.apply(keys);
+        }, IllegalArgumentException.class::isInstance, Duration.ofMillis(50), maxBatchSize, meterRegistry);
+    }
+
+    private Mono<Map<String, String>> upperCase(List<String> keys) {
+        return Mono.just(keys.stream()
+                             .collect(Collectors.toMap(Function.identity(), String::toUpperCase)));
+    }
+}
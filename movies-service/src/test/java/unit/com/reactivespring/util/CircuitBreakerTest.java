@@ -0,0 +1,138 @@
+package com.reactivespring.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CircuitBreakerTest {
+
+    AtomicLong nanoClock = new AtomicLong();
+
+    CircuitBreaker circuitBreaker = new CircuitBreaker(3, Duration.ofSeconds(10), 2, nanoClock::get);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            CircuitBreaker.Permit permit = circuitBreaker.tryAcquirePermission();
+            assertNotNull(permit);
+            circuitBreaker.onFailure(permit);
+        }
+
+        // then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void successResetsFailureCount() {
+
+        // when
+        circuitBreaker.onFailure(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onFailure(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onSuccess(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onFailure(circuitBreaker.tryAcquirePermission());
+
+        // then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void halfOpenProbesCloseTheBreaker() {
+
+        // given
+        open();
+
+        // when
+        nanoClock.addAndGet(Duration.ofSeconds(10)
+                                    .toNanos());
+
+        // then
+        CircuitBreaker.Permit firstProbe = circuitBreaker.tryAcquirePermission();
+        CircuitBreaker.Permit secondProbe = circuitBreaker.tryAcquirePermission();
+        assertNotNull(firstProbe);
+        assertNotNull(secondProbe);
+        assertNull(circuitBreaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onSuccess(firstProbe);
+        circuitBreaker.onSuccess(secondProbe);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void failedProbeReopensTheBreaker() {
+
+        // given
+        open();
+        nanoClock.addAndGet(Duration.ofSeconds(10)
+                                    .toNanos());
+
+        // when
+        CircuitBreaker.Permit probe = circuitBreaker.tryAcquirePermission();
+        assertNotNull(probe);
+        circuitBreaker.onFailure(probe);
+
+        // then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void lateCallsFromBeforeTheOpenPeriodAreNotProbes() {
+
+        // given
+        CircuitBreaker.Permit slowCall = circuitBreaker.tryAcquirePermission();
+        CircuitBreaker.Permit otherSlowCall = circuitBreaker.tryAcquirePermission();
+        open();
+        nanoClock.addAndGet(Duration.ofSeconds(10)
+                                    .toNanos());
+        CircuitBreaker.Permit probe = circuitBreaker.tryAcquirePermission();
+        assertNotNull(probe);
+
+        // when
+        circuitBreaker.onSuccess(slowCall);
+        circuitBreaker.onFailure(otherSlowCall);
+
+        // then neither closed nor reopened the breaker, and no extra probe slot was freed
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertNotNull(circuitBreaker.tryAcquirePermission());
+        assertNull(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void probeFromAnEarlierHalfOpenPeriodIsIgnored() {
+
+        // given
+        open();
+        nanoClock.addAndGet(Duration.ofSeconds(10)
+                                    .toNanos());
+        CircuitBreaker.Permit staleProbe = circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onFailure(circuitBreaker.tryAcquirePermission());
+        nanoClock.addAndGet(Duration.ofSeconds(10)
+                                    .toNanos());
+        CircuitBreaker.Permit probe = circuitBreaker.tryAcquirePermission();
+        assertNotNull(staleProbe);
+        assertNotNull(probe);
+
+        // when
+        circuitBreaker.onSuccess(staleProbe);
+        circuitBreaker.onCancel(staleProbe);
+        circuitBreaker.onSuccess(probe);
+
+        // then
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.onFailure(circuitBreaker.tryAcquirePermission());
+        }
+    }
+}
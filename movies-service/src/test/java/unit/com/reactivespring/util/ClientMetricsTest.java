@@ -0,0 +1,92 @@
+package com.reactivespring.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClientMetricsTest {
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    ClientMetrics clientMetrics = new ClientMetrics("moviesInfo", meterRegistry);
+
+    @Test
+    void filter_tagsStatusClass() {
+
+        // given
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/v1/movieinfos/abc"))
+                                             .build();
+
+        // when
+        clientMetrics.filter()
+                     .filter(request, clientRequest -> Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE)
+                                                                               .build()))
+                     .block();
+
+        // then
+        assertEquals(1, meterRegistry.get("restclient.requests")
+                                     .tag("client", "moviesInfo")
+                                     .tag("status", "5xx")
+                                     .tag("outcome", "server_error")
+                                     .timer()
+                                     .count());
+    }
+
+    @Test
+    void timed_tracksInFlightAndOutcome() {
+
+        // given
+        Sinks.One<String> response = Sinks.one();
+
+        // when
+        StepVerifier.create(clientMetrics.timed("fetchMovieInfo", response.asMono()))
+                    .then(() -> assertEquals(1, inFlight()))
+                    .then(() -> response.tryEmitValue("movieInfo"))
+                    .expectNext("movieInfo")
+                    .verifyComplete();
+
+        // then
+        assertEquals(0, inFlight());
+        assertEquals(1, meterRegistry.get("restclient.calls")
+                                     .tag("operation", "fetchMovieInfo")
+                                     .tag("outcome", "success")
+                                     .timer()
+                                     .count());
+    }
+
+    @Test
+    void timed_countsErrors() {
+
+        // when
+        StepVerifier.create(clientMetrics.timed("fetchMovieInfo", Mono.error(new IllegalStateException("boom"))))
+                    .verifyError(IllegalStateException.class);
+
+        // then
+        assertEquals(1, meterRegistry.get("restclient.errors")
+                                     .tag("exception", "IllegalStateException")
+                                     .counter()
+                                     .count());
+        assertEquals(1, meterRegistry.get("restclient.calls")
+                                     .tag("outcome", "error")
+                                     .timer()
+                                     .count());
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("restclient.inflight")
+                            .tag("client", "moviesInfo")
+                            .gauge()
+                            .value();
+    }
+}
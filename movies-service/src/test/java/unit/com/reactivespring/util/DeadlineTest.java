@@ -0,0 +1,141 @@
+package com.reactivespring.util;
+
+import com.reactivespring.exception.DeadlineExceededException;
+import com.reactivespring.exception.ReviewsServerException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineTest {
+
+    @Test
+    void bound_callTimeoutWithoutRequestDeadline() {
+
+        // when
+        Mono<String> bounded = Deadline.bound(Mono.never(), Duration.ofMillis(50),
+                                              () -> new ReviewsServerException("timed out"));
+
+        // then
+        StepVerifier.create(bounded)
+                    .expectError(ReviewsServerException.class)
+                    .verify(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void bound_requestDeadlineShorterThanCallTimeout() {
+
+        // when
+        Mono<String> bounded = Deadline.bound(Mono.<String>never(), Duration.ofSeconds(10),
+                                              () -> new ReviewsServerException("timed out"))
+                                       .contextWrite(context -> Deadline.after(Duration.ofMillis(50))
+                                                                        .putIn(context));
+
+        // then
+        StepVerifier.create(bounded)
+                    .expectError(DeadlineExceededException.class)
+                    .verify(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void bound_expiredDeadlineFailsWithoutSubscribing() {
+
+        AtomicInteger subscriptions = new AtomicInteger();
+
+        // when
+        Mono<String> bounded = Deadline.bound(Mono.fromCallable(() -> "call")
+                                                  .doOnSubscribe(subscription -> subscriptions.incrementAndGet()),
+                                              Duration.ofSeconds(10),
+                                              () -> new ReviewsServerException("timed out"))
+                                       .contextWrite(context -> Deadline.after(Duration.ZERO)
+                                                                        .putIn(context));
+
+        // then
+        StepVerifier.create(bounded)
+                    .expectError(DeadlineExceededException.class)
+                    .verify(Duration.ofSeconds(2));
+        assertEquals(0, subscriptions.get());
+    }
+
+    @Test
+    void bound_fluxLimitCoversAllElements() {
+
+        // each element arrives well within the limit, the stream as a whole does not
+        Flux<Long> slowStream = Flux.interval(Duration.ofMillis(40))
+                                    .take(10);
+
+        // when
+        Flux<Long> bounded = Deadline.bound(slowStream, Duration.ofMillis(150),
+                                            () -> new ReviewsServerException("timed out"));
+
+        // then
+        StepVerifier.create(bounded)
+                    .thenConsumeWhile(element -> true)
+                    .expectError(ReviewsServerException.class)
+                    .verify(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void idle_longStreamIsNotCutOff() {
+
+        // the stream as a whole runs well past the idle timeout, no gap between elements does
+        Flux<Long> slowStream = Flux.interval(Duration.ofMillis(40))
+                                    .take(10);
+
+        // when
+        Flux<Long> bounded = Deadline.idle(slowStream, Duration.ofMillis(150),
+                                           () -> new ReviewsServerException("went idle"));
+
+        // then
+        StepVerifier.create(bounded)
+                    .expectNextCount(10)
+                    .verifyComplete();
+    }
+
+    @Test
+    void idle_stallAfterFirstElement() {
+
+        // when
+        Flux<String> bounded = Deadline.idle(Flux.concat(Flux.just("first"), Flux.<String>never()), Duration.ofMillis(50),
+                                             () -> new ReviewsServerException("went idle"));
+
+        // then
+        StepVerifier.create(bounded)
+                    .expectNext("first")
+                    .expectError(ReviewsServerException.class)
+                    .verify(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void idle_requestDeadlineShorterThanIdleTimeout() {
+
+        // when
+        Flux<String> bounded = Deadline.idle(Flux.<String>never(), Duration.ofSeconds(10),
+                                             () -> new ReviewsServerException("went idle"))
+                                       .contextWrite(context -> Deadline.after(Duration.ofMillis(50))
+                                                                        .putIn(context));
+
+        // then
+        StepVerifier.create(bounded)
+                    .expectError(DeadlineExceededException.class)
+                    .verify(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void parseHeader() {
+        assertEquals(Optional.of(Duration.ofMillis(250)), Deadline.parseHeader("250"));
+        assertTrue(Deadline.parseHeader(null)
+                           .isEmpty());
+        assertTrue(Deadline.parseHeader("-1")
+                           .isEmpty());
+        assertTrue(Deadline.parseHeader("soon")
+                           .isEmpty());
+    }
+}
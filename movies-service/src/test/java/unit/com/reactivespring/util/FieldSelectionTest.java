@@ -0,0 +1,64 @@
+package com.reactivespring.util;
+
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.exception.InvalidFieldsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldSelectionTest {
+
+    @Test
+    void noFieldsSelectsEverything() {
+        assertSame(FieldSelection.ALL, FieldSelection.parse(null));
+        assertNull(FieldSelection.ALL.movieInfoFields());
+        assertTrue(FieldSelection.ALL.includesReviews());
+        assertNull(FieldSelection.ALL.reviewFields());
+    }
+
+    @Test
+    void dottedFieldsNarrowEachPart() {
+
+        // when
+        FieldSelection selection = FieldSelection.parse("movieInfo.name, movieInfo.year,reviewList.rating");
+
+        // then
+        assertEquals(Set.of("name", "year"), selection.movieInfoFields());
+        assertTrue(selection.includesReviews());
+        assertEquals(Set.of("rating"), selection.reviewFields());
+    }
+
+    @Test
+    void unnamedPartsAreLeftOut() {
+
+        // given
+        FieldSelection selection = FieldSelection.parse("reviewList");
+        Movie movie = new Movie(new MovieInfo("abc", "Batman Begins", 2005, List.of("Christian Bale"), null), List.of());
+
+        // when
+        Movie selected = selection.apply(movie);
+
+        // then
+        assertEquals(Set.of("movieInfoId"), selection.movieInfoFields());
+        assertNull(selection.reviewFields());
+        assertNull(selected.getMovieInfo());
+        assertEquals(List.of(), selected.getReviewList());
+        assertFalse(FieldSelection.parse("movieInfo")
+                                  .includesReviews());
+    }
+
+    @Test
+    void unknownFieldsAreRejected() {
+        assertThrows(InvalidFieldsException.class, () -> FieldSelection.parse("movieInfo.budget"));
+        assertThrows(InvalidFieldsException.class, () -> FieldSelection.parse("ratings"));
+    }
+}
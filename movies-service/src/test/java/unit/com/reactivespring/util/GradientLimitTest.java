@@ -0,0 +1,69 @@
+package com.reactivespring.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientLimitTest {
+
+    static final long RTT = TimeUnit.MILLISECONDS.toNanos(20);
+
+    GradientLimit limit = new GradientLimit(20, 5, 200, 0.2, 1.5, 100);
+
+    @Test
+    void growsWhileLatencyIsSteady() {
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, limit.getLimit());
+        }
+
+        // then
+        assertTrue(limit.getLimit() > 20, "limit was " + limit.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+
+        // given
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, limit.getLimit());
+        }
+        int warmLimit = limit.getLimit();
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(RTT * 4, limit.getLimit());
+        }
+
+        // then
+        assertTrue(limit.getLimit() < warmLimit, "limit was " + limit.getLimit() + ", before " + warmLimit);
+    }
+
+    @Test
+    void doesNotGrowWhenMostlyIdle() {
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, 2);
+        }
+
+        // then
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    void staysWithinBounds() {
+
+        // when
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(RTT * (i % 2 == 0 ? 1 : 50), limit.getLimit());
+        }
+
+        // then
+        assertTrue(limit.getLimit() >= 5 && limit.getLimit() <= 200, "limit was " + limit.getLimit());
+    }
+}
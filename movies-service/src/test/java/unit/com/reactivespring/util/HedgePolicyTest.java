@@ -0,0 +1,92 @@
+package com.reactivespring.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HedgePolicyTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    AtomicInteger attempts = new AtomicInteger();
+
+    HedgePolicy hedgePolicy(RetryBudget hedgeBudget) {
+        return new HedgePolicy("moviesInfo",
+                               true,
+                               Duration.ofMillis(10),
+                               Duration.ofMillis(100),
+                               new LatencyTracker(100, 95, 10),
+                               hedgeBudget,
+                               meterRegistry);
+    }
+
+    double count(String name) {
+        return meterRegistry.get(name)
+                            .counter()
+                            .count();
+    }
+
+    @Test
+    void apply_hedgeWinsWhenFirstRequestIsSlow() {
+
+        // given
+        HedgePolicy hedgePolicy = hedgePolicy(new RetryBudget(10, 0.05));
+        Mono<String> request = Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofSeconds(1))
+                      .thenReturn("first")
+                : Mono.just("hedge"));
+
+        // then
+        StepVerifier.withVirtualTime(() -> hedgePolicy.apply(request))
+                    .thenAwait(Duration.ofMillis(100))
+                    .expectNext("hedge")
+                    .verifyComplete();
+        assertEquals(2, attempts.get());
+        assertEquals(1, count("restclient.hedges.fired"));
+        assertEquals(1, count("restclient.hedges.won"));
+    }
+
+    @Test
+    void apply_noHedgeWhenFirstRequestIsFast() {
+
+        // given
+        HedgePolicy hedgePolicy = hedgePolicy(new RetryBudget(10, 0.05));
+        Mono<String> request = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.just("first");
+        });
+
+        // then
+        StepVerifier.withVirtualTime(() -> hedgePolicy.apply(request))
+                    .expectNext("first")
+                    .verifyComplete();
+        assertEquals(1, attempts.get());
+        assertEquals(0, count("restclient.hedges.fired"));
+    }
+
+    @Test
+    void apply_noHedgeWithoutBudget() {
+
+        // given
+        HedgePolicy hedgePolicy = hedgePolicy(new RetryBudget(0, 0));
+        Mono<String> request = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.delay(Duration.ofSeconds(1))
+                       .thenReturn("first");
+        });
+
+        // then
+        StepVerifier.withVirtualTime(() -> hedgePolicy.apply(request))
+                    .thenAwait(Duration.ofSeconds(1))
+                    .expectNext("first")
+                    .verifyComplete();
+        assertEquals(1, attempts.get());
+        assertEquals(0, count("restclient.hedges.fired"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.reactivespring.util;
+
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReconnectPolicyTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    ReconnectPolicy reconnectPolicy = new ReconnectPolicy("movieInfoEvents",
+                                                          Duration.ofMillis(1),
+                                                          Duration.ofMillis(5),
+                                                          ex -> ex instanceof MoviesInfoServerException
+                                                                  || ex instanceof IOException,
+                                                          meterRegistry);
+
+    @Test
+    void apply_reconnectsAfterTransportErrorsWithoutLimit() {
+
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        Flux<Integer> connection = Flux.defer(() -> {
+            int attempt = attempts.incrementAndGet();
+            return attempt < 10
+                    ? Flux.<Integer>error(new IOException("Connection reset by peer"))
+                    : Flux.just(attempt)
+                          .concatWith(Flux.never());
+        });
+
+        // then
+        StepVerifier.create(reconnectPolicy.apply(connection))
+                    .expectNext(10)
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+        assertEquals(9,
+                     meterRegistry.get("restclient.stream.reconnects")
+                                  .counter()
+                                  .count());
+    }
+
+    @Test
+    void apply_reconnectsWhenTheStreamEnds() {
+
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        Flux<Integer> connection = Flux.defer(() -> Flux.just(attempts.incrementAndGet()));
+
+        // then
+        StepVerifier.create(reconnectPolicy.apply(connection))
+                    .expectNext(1, 2, 3)
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void apply_doesNotReconnectAfterClientErrors() {
+
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        Flux<Integer> connection = Flux.defer(() -> {
+            attempts.incrementAndGet();
+            return Flux.error(new MoviesInfoClientException("Invalid Last-Event-ID", 400));
+        });
+
+        // then
+        StepVerifier.create(reconnectPolicy.apply(connection))
+                    .expectError(MoviesInfoClientException.class)
+                    .verify();
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,176 @@
+package com.reactivespring.util;
+
+import com.reactivespring.exception.CircuitBreakerOpenException;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RetryPolicyTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    RetryPolicy retryPolicy(RetryBudget retryBudget, CircuitBreaker circuitBreaker) {
+        return new RetryPolicy("moviesInfo",
+                               3,
+                               Duration.ofMillis(1),
+                               Duration.ofMillis(5),
+                               0.5,
+                               ex -> ex instanceof MoviesInfoServerException,
+                               retryBudget,
+                               circuitBreaker,
+                               meterRegistry);
+    }
+
+    @Test
+    void apply_retriesServerErrors() {
+
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+        RetryPolicy retryPolicy = retryPolicy(new RetryBudget(10, 0.1), new CircuitBreaker(10, Duration.ofSeconds(10), 1));
+
+        // when
+        Mono<String> call = Mono.defer(() -> attempts.incrementAndGet() < 3
+                ? Mono.error(new MoviesInfoServerException("Unavailable"))
+                : Mono.just("ok"));
+
+        // then
+        StepVerifier.create(retryPolicy.apply(call))
+                    .expectNext("ok")
+                    .verifyComplete();
+        assertEquals(3, attempts.get());
+        assertEquals(2,
+                     meterRegistry.get("restclient.retries")
+                                  .counter()
+                                  .count());
+    }
+
+    @Test
+    void apply_doesNotRetryClientErrors() {
+
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+        RetryPolicy retryPolicy = retryPolicy(new RetryBudget(10, 0.1), new CircuitBreaker(10, Duration.ofSeconds(10), 1));
+
+        // when
+        Mono<String> call = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new MoviesInfoClientException("Not Found", 404));
+        });
+
+        // then
+        StepVerifier.create(retryPolicy.apply(call))
+                    .expectError(MoviesInfoClientException.class)
+                    .verify();
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void apply_stopsRetryingWhenBudgetIsEmpty() {
+
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+        RetryPolicy retryPolicy = retryPolicy(new RetryBudget(1, 0.1), new CircuitBreaker(10, Duration.ofSeconds(10), 1));
+
+        // when
+        Mono<String> call = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new MoviesInfoServerException("Unavailable"));
+        });
+
+        // then
+        StepVerifier.create(retryPolicy.apply(call))
+                    .expectError(MoviesInfoServerException.class)
+                    .verify();
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void apply_failsFastWhenCircuitIsOpen() {
+
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+        RetryPolicy retryPolicy = retryPolicy(new RetryBudget(10, 0.1), new CircuitBreaker(2, Duration.ofSeconds(10), 1));
+
+        // when
+        Mono<String> call = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new MoviesInfoServerException("Unavailable"));
+        });
+
+        // then
+        StepVerifier.create(retryPolicy.apply(call))
+                    .expectError(CircuitBreakerOpenException.class)
+                    .verify();
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void apply_streamSettlesItsProbeOnFirstElement() throws InterruptedException {
+
+        // given
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMillis(10), 1);
+        RetryPolicy retryPolicy = retryPolicy(new RetryBudget(10, 0.1), circuitBreaker);
+        StepVerifier.create(retryPolicy.apply(Mono.error(new MoviesInfoServerException("Unavailable"))))
+                    .expectError()
+                    .verify();
+        Thread.sleep(20);
+
+        // when
+        Disposable stream = retryPolicy.apply(Flux.concat(Flux.just("first"), Flux.<String>never()))
+                                       .subscribe();
+
+        // then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        stream.dispose();
+    }
+
+    @Test
+    void applyUntilFirst_retriesAttemptsThatEmittedNothing() {
+
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+        RetryPolicy retryPolicy = retryPolicy(new RetryBudget(10, 0.1), new CircuitBreaker(10, Duration.ofSeconds(10), 1));
+
+        // when
+        Flux<String> call = Flux.defer(() -> attempts.incrementAndGet() < 2
+                ? Flux.error(new MoviesInfoServerException("Unavailable"))
+                : Flux.just("first", "second"));
+
+        // then
+        StepVerifier.create(retryPolicy.applyUntilFirst(call))
+                    .expectNext("first", "second")
+                    .verifyComplete();
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void applyUntilFirst_doesNotRetryAfterFirstElement() {
+
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+        RetryPolicy retryPolicy = retryPolicy(new RetryBudget(10, 0.1), new CircuitBreaker(10, Duration.ofSeconds(10), 1));
+
+        // when
+        Flux<String> call = Flux.defer(() -> {
+            attempts.incrementAndGet();
+            return Flux.concat(Flux.just("first"), Flux.<String>error(new MoviesInfoServerException("Unavailable")));
+        });
+
+        // then
+        StepVerifier.create(retryPolicy.applyUntilFirst(call))
+                    .expectNext("first")
+                    .expectError(MoviesInfoServerException.class)
+                    .verify();
+        assertEquals(1, attempts.get());
+    }
+}